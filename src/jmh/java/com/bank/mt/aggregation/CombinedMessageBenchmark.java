@@ -0,0 +1,54 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.benchmark.MtMessages;
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.parsing.MtParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assembly of the combined raw message when a multi-page aggregation completes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombinedMessageBenchmark {
+
+    @Param({"MT940", "MT950"})
+    private String messageType;
+
+    @Param({"10", "1000", "10000"})
+    private int lines;
+
+    @Param({"2", "50"})
+    private int pageCount;
+
+    private List<MtAggregationPage> pages;
+    private MtStatement lastPage;
+
+    @Setup
+    public void setUp() {
+        MtParser parser = new MtParser();
+        pages = new ArrayList<>();
+        int pageNumber = 1;
+        for (String raw : MtMessages.pages(messageType, lines, pageCount)) {
+            MtAggregationPage page = new MtAggregationPage();
+            page.setPageNumber(pageNumber++);
+            page.setRawMessage(raw);
+            pages.add(page);
+            lastPage = parser.parse(raw);
+        }
+    }
+
+    @Benchmark
+    public String buildCombinedRawMessage() {
+        return CombinedStatementBuilder.buildRawMessage(pages, lastPage);
+    }
+}
@@ -0,0 +1,82 @@
+package com.bank.mt.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates syntactically valid MT940/942/950 messages of a given size for benchmarks.
+ * Amounts are chosen so the balances reconcile (opening + sum of :61: = closing).
+ */
+public final class MtMessages {
+
+    public static final String SENDER = "HSBCGB2LAXXX";
+    public static final String RECEIVER = "CITIUS33XXXX";
+    public static final String ACCOUNT = "123456789";
+
+    private MtMessages() {
+    }
+
+    /** A complete single-page statement with {@code lines} :61: entries (every other one with :86:). */
+    public static String statement(String messageType, int lines) {
+        return pages(messageType, lines, 1).get(0);
+    }
+
+    /**
+     * Splits {@code lines} :61: entries over {@code pageCount} pages using the
+     * :60F:/:62M: → :60M:/:62M: → :60M:/:62F: convention the parser relies on.
+     */
+    public static List<String> pages(String messageType, int lines, int pageCount) {
+        String type = messageType.startsWith("MT") ? messageType.substring(2) : messageType;
+        boolean interim = "942".equals(type);
+        List<String> pages = new ArrayList<>(pageCount);
+        long balance = 1_000_000_00L;
+        int perPage = Math.max(1, lines / pageCount);
+        int written = 0;
+
+        for (int page = 1; page <= pageCount; page++) {
+            boolean first = page == 1;
+            boolean last = page == pageCount;
+            int count = last ? lines - written : Math.min(perPage, lines - written);
+
+            StringBuilder sb = new StringBuilder(128 + count * 96);
+            sb.append("{1:F01").append(SENDER).append("0000000000}")
+              .append("{2:I").append(type).append(RECEIVER).append("N}")
+              .append("{4:\n")
+              .append(":20:BENCH").append(lines).append('\n')
+              .append(":25:").append(ACCOUNT).append('\n')
+              .append(":28C:00001/").append(String.format("%03d", page)).append('\n');
+            if (interim) {
+                sb.append(":34F:EUR0,\n:13D:2101011200+0100\n");
+            } else {
+                sb.append(first ? ":60F:" : ":60M:").append("C210101EUR").append(amount(balance)).append('\n');
+            }
+
+            for (int i = 0; i < count; i++, written++) {
+                boolean credit = written % 3 == 0;
+                long minor = 1_00L + (written % 997) * 13L;
+                balance += credit ? minor : -minor;
+                sb.append(":61:2101010101").append(credit ? "C" : "D").append(amount(minor))
+                  .append("NTRFREF").append(written).append("//ACCT-OWNER\n");
+                if (written % 2 == 0) {
+                    sb.append(":86:PAYMENT ").append(written).append(" INVOICE 2021-").append(written % 1000).append('\n');
+                }
+            }
+
+            if (interim) {
+                sb.append(":90D:").append(count).append("EUR0,\n:90C:").append(count).append("EUR0,\n");
+            } else {
+                sb.append(last ? ":62F:" : ":62M:").append(balance >= 0 ? "C" : "D")
+                  .append("210101EUR").append(amount(Math.abs(balance))).append('\n');
+            }
+            sb.append("-}");
+            pages.add(sb.toString());
+        }
+        return pages;
+    }
+
+    /** SWIFT amount: integer part, comma, two decimals. */
+    private static String amount(long minor) {
+        long cents = minor % 100;
+        return (minor / 100) + "," + (cents < 10 ? "0" : "") + cents;
+    }
+}
@@ -0,0 +1,79 @@
+package com.bank.mt.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages/s through the delivery executor in PLATFORM vs VIRTUAL mode, with the
+ * per-message work simulated as one database call (1 ms, at most {@code DB_PERMITS}
+ * at once, as the PermitDataSource allows) followed by a blocking delivery of
+ * {@code deliveryLatencyMs}. PLATFORM uses the default pool (4 core / 8 max / 200 queue).
+ *
+ * On Java 17–20 VIRTUAL falls back to the platform pool, exactly as the application
+ * does, so both rows match; run on Java 21+ to compare the modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@OperationsPerInvocation(ThreadModeBenchmark.MESSAGES)
+public class ThreadModeBenchmark {
+
+    static final int MESSAGES = 200;
+    static final int DB_PERMITS = 10;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private ThreadPoolConfig.ThreadMode mode;
+
+    @Param({"2", "20"})
+    private int deliveryLatencyMs;
+
+    private Executor executor;
+    private Semaphore database;
+
+    @Setup
+    public void setUp() {
+        executor = new ThreadPoolConfig(mode).deliveryExecutor(4, 8, 200);
+        database = new Semaphore(DB_PERMITS, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void deliverBatch() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            executor.execute(() -> {
+                try {
+                    database.acquire();
+                    try {
+                        Thread.sleep(1);
+                    } finally {
+                        database.release();
+                    }
+                    Thread.sleep(deliveryLatencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
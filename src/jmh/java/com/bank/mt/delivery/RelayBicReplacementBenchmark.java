@@ -0,0 +1,50 @@
+package com.bank.mt.delivery;
+
+import com.bank.mt.benchmark.MtMessages;
+import com.bank.mt.domain.DeliveryInstruction;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.parsing.MtParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SWIFT relay path of DeliveryService: Block 2 receiver BIC replacement
+ * and relay statement construction, with a no-op adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RelayBicReplacementBenchmark {
+
+    @Param({"MT940", "MT942", "MT950"})
+    private String messageType;
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private DeliveryService deliveryService;
+    private DeliveryInstruction instruction;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        DeliveryAdapter adapter = (destination, statement) -> blackhole.consume(statement.getRawMessage());
+        deliveryService = new DeliveryService(adapter, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deliveryService, "maxRetries", 1);
+
+        MtStatement statement = new MtParser().parse(MtMessages.statement(messageType, lines));
+        instruction = new DeliveryInstruction(List.of(), "COBADEFF", statement);
+    }
+
+    @Benchmark
+    public boolean relay() {
+        return deliveryService.deliver(instruction);
+    }
+}
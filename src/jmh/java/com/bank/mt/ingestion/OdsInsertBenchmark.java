@@ -0,0 +1,138 @@
+package com.bank.mt.ingestion;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ODS inserts/s on H2 (PostgreSQL mode), replaying the JDBC traffic Hibernate produces
+ * for each id strategy:
+ * - IDENTITY: one INSERT ... RETURNING per row, one transaction per row (the pre-V13
+ *   repository save; identity ids disable insert batching).
+ * - POOLED_BATCH: one nextval per {@code BATCH} rows, the rows sent as one JDBC batch
+ *   and committed together (pooled sequence + hibernate.jdbc.batch_size + OdsWriteBatcher).
+ *
+ * {@code store=file} writes to target/jmh-ods so commit cost is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@OperationsPerInvocation(OdsInsertBenchmark.ROWS)
+public class OdsInsertBenchmark {
+
+    static final int ROWS = 500;
+    static final int BATCH = 50;
+
+    private static final String RAW = """
+            {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+            :20:REF456
+            :25:123456789
+            :28C:00002/002
+            :60F:C210201EUR5000,
+            :61:2102010201DR200,NTRFREF002//ACCT-OWNER
+            :61:2102010201DR300,NTRFREF003//ACCT-OWNER
+            -}""";
+
+    public enum Strategy {
+        IDENTITY,
+        POOLED_BATCH
+    }
+
+    @Param({"IDENTITY", "POOLED_BATCH"})
+    private Strategy strategy;
+
+    @Param({"mem", "file"})
+    private String store;
+
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws Exception {
+        String url;
+        if ("file".equals(store)) {
+            Path dir = Files.createDirectories(Path.of("target", "jmh-ods"));
+            url = "jdbc:h2:file:" + dir.toAbsolutePath().resolve("ods-" + strategy) + ";MODE=PostgreSQL";
+        } else {
+            url = "jdbc:h2:mem:ods-" + strategy + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+        }
+        connection = DriverManager.getConnection(url, "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("DROP TABLE IF EXISTS mt_message_ods");
+            ddl.execute("DROP SEQUENCE IF EXISTS mt_message_ods_seq");
+            ddl.execute("CREATE SEQUENCE mt_message_ods_seq START WITH " + BATCH + " INCREMENT BY " + BATCH);
+            ddl.execute(strategy == Strategy.IDENTITY
+                    ? "CREATE TABLE mt_message_ods (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,"
+                      + " raw_message TEXT, status VARCHAR(20) NOT NULL, retry_count INT NOT NULL DEFAULT 0,"
+                      + " created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)"
+                    : "CREATE TABLE mt_message_ods (id BIGINT PRIMARY KEY,"
+                      + " raw_message TEXT, status VARCHAR(20) NOT NULL, retry_count INT NOT NULL DEFAULT 0,"
+                      + " created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public long insertRows() throws SQLException {
+        return strategy == Strategy.IDENTITY ? insertIdentity() : insertPooledBatch();
+    }
+
+    private long insertIdentity() throws SQLException {
+        long last = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO mt_message_ods (raw_message, status, retry_count, created_at, updated_at)"
+                + " VALUES (?, 'PROCESSING', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                insert.setString(1, RAW);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    last = keys.getLong(1);
+                }
+                connection.commit();
+            }
+        }
+        return last;
+    }
+
+    private long insertPooledBatch() throws SQLException {
+        long last = 0;
+        try (PreparedStatement nextval = connection.prepareStatement("SELECT nextval('mt_message_ods_seq')");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO mt_message_ods (id, raw_message, status, retry_count, created_at, updated_at)"
+                     + " VALUES (?, ?, 'PROCESSING', 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)")) {
+            for (int start = 0; start < ROWS; start += BATCH) {
+                long hi;
+                try (ResultSet rs = nextval.executeQuery()) {
+                    rs.next();
+                    hi = rs.getLong(1);
+                }
+                for (long id = hi - BATCH + 1; id <= hi; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, RAW);
+                    insert.addBatch();
+                    last = id;
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+        return last;
+    }
+}
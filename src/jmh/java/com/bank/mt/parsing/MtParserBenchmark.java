@@ -0,0 +1,52 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.benchmark.MtMessages;
+import com.bank.mt.domain.MtStatement;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MtParser.parse across engines, message types and statement sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MtParserBenchmark {
+
+    @Param({"REGEX", "SINGLE_PASS"})
+    private MtParser.Engine engine;
+
+    @Param({"MT940", "MT942", "MT950"})
+    private String messageType;
+
+    @Param({"1", "100", "10000"})
+    private int lines;
+
+    private MtParser parser;
+    private String raw;
+    private ByteBuffer bytes;
+
+    @Setup
+    public void setUp() {
+        parser = new MtParser(engine);
+        raw = MtMessages.statement(messageType, lines);
+        byte[] ascii = raw.getBytes(StandardCharsets.US_ASCII);
+        bytes = ByteBuffer.allocateDirect(ascii.length).put(ascii).flip();
+    }
+
+    @Benchmark
+    public MtStatement parseString() {
+        return parser.parse(raw);
+    }
+
+    @Benchmark
+    public MtStatement parseByteBuffer() {
+        return parser.parse(bytes);
+    }
+}
@@ -0,0 +1,57 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.benchmark.MtMessages;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MtParser.parseAll throughput (messages/s) as the fork/join pool grows from 1 worker
+ * to every core. Compare scores across {@code workers} to read the scaling curve;
+ * workers=0 means one per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(ParallelParseBenchmark.BATCH)
+public class ParallelParseBenchmark {
+
+    static final int BATCH = 2000;
+
+    @Param({"1", "2", "4", "8", "0"})
+    private int workers;
+
+    @Param({"20", "500"})
+    private int lines;
+
+    private MtParser parser;
+    private ForkJoinPool pool;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() {
+        parser = new MtParser(MtParser.Engine.SINGLE_PASS);
+        pool = new ForkJoinPool(workers > 0 ? workers : Runtime.getRuntime().availableProcessors());
+        batch = new ArrayList<>(BATCH);
+        String[] types = {"MT940", "MT942", "MT950"};
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(MtMessages.statement(types[i % types.length], lines));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<MtParseResult> parseAll() {
+        return parser.parseAll(batch, pool);
+    }
+}
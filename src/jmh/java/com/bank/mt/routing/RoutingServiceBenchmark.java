@@ -0,0 +1,70 @@
+package com.bank.mt.routing;
+
+import com.bank.mt.benchmark.MtMessages;
+import com.bank.mt.domain.DeliveryInstruction;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.RelayConfig;
+import com.bank.mt.domain.RoutingRule;
+import com.bank.mt.parsing.MtParser;
+import com.bank.mt.repository.RelayConfigRepository;
+import com.bank.mt.repository.RoutingRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * RoutingService.route against rule caches of increasing size.
+ * One rule in the set matches the statement; the rest differ by account.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoutingServiceBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int ruleCount;
+
+    private RoutingService routingService;
+    private MtStatement statement;
+
+    @Setup
+    public void setUp() {
+        List<RoutingRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            RoutingRule rule = new RoutingRule();
+            rule.setAccountNumber(i == ruleCount / 2 ? MtMessages.ACCOUNT : "ACCT" + i);
+            rule.setMessageType(i % 2 == 0 ? "MT940" : "*");
+            rule.setSenderBic(i % 3 == 0 ? "*" : "HSBCGB2L");
+            rule.setReceiverBic("CITIUS33");
+            rule.setDestinationQueue("QUEUE." + i);
+            rule.setActive(true);
+            rules.add(rule);
+        }
+        RelayConfig relay = new RelayConfig();
+        relay.setAccountNumber("OTHER");
+        relay.setActive(true);
+
+        RoutingRuleRepository ruleRepository = mock(RoutingRuleRepository.class);
+        RelayConfigRepository relayRepository = mock(RelayConfigRepository.class);
+        when(ruleRepository.findByActiveTrue()).thenReturn(rules);
+        when(relayRepository.findByActiveTrue()).thenReturn(List.of(relay));
+
+        routingService = new RoutingService(ruleRepository, relayRepository, new SimpleMeterRegistry());
+        routingService.refreshCache();
+        statement = new MtParser().parse(MtMessages.statement("MT940", 1));
+    }
+
+    @Benchmark
+    public DeliveryInstruction route() {
+        return routingService.route(statement);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.AggregationResult;
+import com.bank.mt.domain.InFlightAggregation;
+import com.bank.mt.domain.MtStatement;
+
+import java.util.List;
+
+/**
+ * Collects the pages of multi-page statements until complete.
+ * Implementations are selected via mt.aggregation.mode.
+ */
+public interface AggregationEngine {
+
+    AggregationResult aggregate(MtStatement statement, Long odsMessageId);
+
+    /** Groups still waiting for pages, with the page ranges they are missing. */
+    List<InFlightAggregation> inFlight();
+}
@@ -0,0 +1,16 @@
+package com.bank.mt.aggregation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Expiry clock for DATABASE-mode aggregations. {@link AggregationService} starts it when
+ * a group is created and stops it on completion; the expiry scheduler implements it.
+ */
+public interface AggregationExpiryTracker {
+
+    /** Starts the expiry clock for a newly created aggregation. */
+    void track(Long aggregationId, LocalDateTime createdAt);
+
+    /** Stops the clock; the aggregation completed. */
+    void untrack(Long aggregationId);
+}
@@ -0,0 +1,326 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.AggregationStatus;
+import com.bank.mt.domain.MtAggregation;
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtAggregationPageRepository;
+import com.bank.mt.repository.MtAggregationRepository;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind journal for IN_MEMORY aggregation.
+ *
+ * The engine appends one entry per accepted page or status change; a single writer
+ * thread drains the queue and persists entries in batches, one transaction per batch,
+ * into the same mt_aggregation / mt_aggregation_page tables DATABASE mode uses. The
+ * tables are therefore an audit trail and the recovery source, never read on the hot path.
+ *
+ * The queue is bounded (mt.aggregation.journal.queue-capacity): when the writer falls
+ * behind, {@link #append} blocks and ingestion slows down to the database's pace.
+ * Entries for one group are appended under that group's lock, so they are written in order.
+ *
+ * The engine has already acted on every entry, so none is dropped for a transient
+ * failure: an entry that fails on its own is retried with exponential backoff
+ * (mt.aggregation.journal.retry-*) and everything behind it waits. A constraint violation
+ * would fail the same way on every attempt, so that entry alone is logged, counted as
+ * failed and its ODS message marked FAILED instead. While it is stuck the journal reports DOWN on the
+ * health endpoint, and once the queue is full ingestion stops rather than diverging
+ * from the tables it would be rebuilt from.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "IN_MEMORY")
+public class AggregationJournal implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregationJournal.class);
+
+    private final MtAggregationRepository aggregationRepo;
+    private final MtAggregationPageRepository pageRepo;
+    private final MtMessageOdsRepository odsRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Entry> queue;
+    private final int batchSize;
+    private final Map<AggregationKey, Long> aggregationIds = new ConcurrentHashMap<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final long retryInitialMillis;
+    private final long retryMaxMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile Stall stall;
+
+    public AggregationJournal(MtAggregationRepository aggregationRepo,
+                              MtAggregationPageRepository pageRepo,
+                              MtMessageOdsRepository odsRepo,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${mt.aggregation.journal.batch-size:256}") int batchSize,
+                              @Value("${mt.aggregation.journal.queue-capacity:10000}") int queueCapacity,
+                              @Value("${mt.aggregation.journal.retry-initial-ms:100}") long retryInitialMillis,
+                              @Value("${mt.aggregation.journal.retry-max-ms:30000}") long retryMaxMillis) {
+        this.aggregationRepo = aggregationRepo;
+        this.pageRepo = pageRepo;
+        this.odsRepo = odsRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.retryInitialMillis = Math.max(1, retryInitialMillis);
+        this.retryMaxMillis = Math.max(this.retryInitialMillis, retryMaxMillis);
+        this.writtenCounter = meterRegistry.counter("mt.aggregation.journal.written");
+        this.failedCounter = meterRegistry.counter("mt.aggregation.journal.failed");
+        meterRegistry.gauge("mt.aggregation.journal.pending", queue, BlockingQueue::size);
+
+        this.writer = new Thread(this::drainLoop, "aggregation-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** A page was accepted; the group row is created on first sight. */
+    void pageAdded(AggregationKey key, MtAggregationPage page, int totalPages, int receivedPages,
+                   byte[] pageBitmap, AggregationStatus status) {
+        append(new Entry(key, page, totalPages, receivedPages, pageBitmap, status, List.of(), null));
+    }
+
+    /** The group was closed without a new page — expiry; the listed ODS messages are marked FAILED. */
+    void statusChanged(AggregationKey key, int totalPages, int receivedPages, byte[] pageBitmap,
+                       AggregationStatus status, List<Long> failedOdsIds, String reason) {
+        append(new Entry(key, null, totalPages, receivedPages, pageBitmap, status, failedOdsIds, reason));
+    }
+
+    /** Seeds the key → row id map from rows that already exist, when the engine rebuilds at startup. */
+    void register(AggregationKey key, Long aggregationId) {
+        aggregationIds.put(key, aggregationId);
+    }
+
+    /** Drops the key → row id mapping once the engine has evicted the group's tombstone. */
+    void forget(AggregationKey key) {
+        aggregationIds.remove(key);
+    }
+
+    /** Waits until everything appended so far has been written. Returns false on timeout. */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = appended.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (processed.get() < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    /** DOWN while an entry is failing and being retried, with everything behind it waiting. */
+    @Override
+    public Health health() {
+        Stall current = stall;
+        if (current == null) {
+            return Health.up().withDetail("pending", queue.size()).build();
+        }
+        return Health.down()
+                .withDetail("pending", queue.size())
+                .withDetail("stalledSince", current.since.toString())
+                .withDetail("statementNumber", current.key.statementNumber())
+                .withDetail("accountNumber", current.key.accountNumber())
+                .withDetail("attempts", current.attempts)
+                .withDetail("error", String.valueOf(current.error))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            log.warn("Aggregation journal stopped with {} entries unwritten", queue.size());
+        }
+    }
+
+    private void append(Entry entry) {
+        try {
+            queue.put(entry);
+            appended.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while appending to aggregation journal", e);
+        }
+    }
+
+    private void drainLoop() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            // Polled rather than interrupted on shutdown: an interrupt can close the JDBC connection mid-write
+            Entry first;
+            try {
+                first = queue.poll(200, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            try {
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            processed.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    private void write(List<Entry> batch) throws InterruptedException {
+        Map<AggregationKey, Long> created = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> batch.forEach(entry -> apply(entry, created)));
+            aggregationIds.putAll(created);
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException batchFailure) {
+            // One entry per transaction, in order, so a bad entry only holds up what comes after it
+            log.warn("Journal batch of {} failed, retrying entries individually: {}",
+                    batch.size(), batchFailure.getMessage());
+            for (Entry entry : batch) {
+                writeUntilPersisted(entry);
+            }
+        }
+    }
+
+    /**
+     * Writes one entry, retrying with exponential backoff until it succeeds. Gives up
+     * when the journal is shutting down, leaving the entry unwritten as on any shutdown
+     * with a backlog, or at once on a constraint violation, which no retry would fix.
+     */
+    private void writeUntilPersisted(Entry entry) throws InterruptedException {
+        Map<AggregationKey, Long> created = new HashMap<>();
+        long backoff = retryInitialMillis;
+        for (int attempt = 1; ; attempt++) {
+            created.clear();
+            try {
+                transactionTemplate.executeWithoutResult(tx -> apply(entry, created));
+                aggregationIds.putAll(created);
+                writtenCounter.increment();
+                if (stall != null) {
+                    log.info("Journal resumed: aggregation stmt={} acct={} written after {} attempts",
+                            entry.key.statementNumber(), entry.key.accountNumber(), attempt);
+                    stall = null;
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                failedCounter.increment();
+                log.error("Dropping journal entry for aggregation stmt={} acct={} status={}: {}",
+                        entry.key.statementNumber(), entry.key.accountNumber(), entry.status, e.getMessage());
+                failOdsMessage(entry, e);
+                stall = null;
+                return;
+            } catch (RuntimeException e) {
+                failedCounter.increment();
+                stall = new Stall(entry.key, stall != null ? stall.since : Instant.now(), attempt, e.getMessage());
+                if (!running) {
+                    log.error("Journal stopping with aggregation stmt={} acct={} status={} unwritten: {}",
+                            entry.key.statementNumber(), entry.key.accountNumber(), entry.status, e.getMessage());
+                    return;
+                }
+                log.error("Failed to journal aggregation stmt={} acct={} status={} (attempt {}), retrying in {} ms: {}",
+                        entry.key.statementNumber(), entry.key.accountNumber(), entry.status, attempt, backoff,
+                        e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, retryMaxMillis);
+            }
+        }
+    }
+
+    /** Marks the dropped entry's ODS message FAILED so it does not sit in PROCESSING. */
+    private void failOdsMessage(Entry entry, DataIntegrityViolationException cause) {
+        Long odsId = entry.page != null ? entry.page.getOdsMessageId() : null;
+        if (odsId == null) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> odsRepo.failBatch(List.of(odsId), OdsStatus.PROCESSING,
+                    "Aggregation journal rejected page: " + cause.getMostSpecificCause().getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Failed to mark ODS message {} FAILED after dropping its journal entry", odsId, e);
+        }
+    }
+
+    private void apply(Entry entry, Map<AggregationKey, Long> created) {
+        Long id = aggregationIds.get(entry.key);
+        if (id == null) {
+            id = created.get(entry.key);
+        }
+        if (id == null) {
+            MtAggregation agg = new MtAggregation();
+            agg.setStatementNumber(entry.key.statementNumber());
+            agg.setAccountNumber(entry.key.accountNumber());
+            agg.setMessageType(entry.key.messageType());
+            agg.setTransactionReference(entry.key.transactionReference());
+            agg.setStatus(AggregationStatus.IN_PROGRESS);
+            agg.setTotalPages(entry.totalPages);
+            agg.setReceivedPages(0);
+            id = aggregationRepo.save(agg).getId();
+            created.put(entry.key, id);
+        }
+
+        if (entry.page != null) {
+            MtAggregationPage page = new MtAggregationPage();
+            page.setAggregation(aggregationRepo.getReferenceById(id));
+            page.setPageNumber(entry.page.getPageNumber());
+            page.setRawMessage(entry.page.getRawMessage());
+            page.setChecksum(entry.page.getChecksum());
+            page.setOdsMessageId(entry.page.getOdsMessageId());
+            page.setOpeningBalance(entry.page.getOpeningBalance());
+            page.setNetMovement(entry.page.getNetMovement());
+            page.setClosingBalance(entry.page.getClosingBalance());
+            pageRepo.save(page);
+        }
+
+        aggregationRepo.updateProgress(id, entry.totalPages, entry.receivedPages, entry.pageBitmap, entry.status);
+
+        if (!entry.failedOdsIds.isEmpty()) {
+            odsRepo.failBatch(entry.failedOdsIds, OdsStatus.PROCESSING, entry.reason);
+        }
+    }
+
+    private record Stall(AggregationKey key, Instant since, int attempts, String error) {
+    }
+
+    private record Entry(AggregationKey key,
+                         MtAggregationPage page,
+                         int totalPages,
+                         int receivedPages,
+                         byte[] pageBitmap,
+                         AggregationStatus status,
+                         List<Long> failedOdsIds,
+                         String reason) {
+    }
+}
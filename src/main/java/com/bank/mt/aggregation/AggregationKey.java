@@ -0,0 +1,26 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.MtAggregation;
+import com.bank.mt.domain.MtStatement;
+
+/**
+ * Composite key of an aggregation group — the same columns as the
+ * idx_agg_stmt_acct_ref unique index on mt_aggregation.
+ */
+record AggregationKey(String statementNumber, String accountNumber, String messageType,
+                      String transactionReference) {
+
+    static AggregationKey of(MtStatement statement) {
+        return new AggregationKey(statement.getStatementNumber(), statement.getAccountNumber(),
+                statement.getMessageType(), normalizeReference(statement.getTransactionReference()));
+    }
+
+    static AggregationKey of(MtAggregation aggregation) {
+        return new AggregationKey(aggregation.getStatementNumber(), aggregation.getAccountNumber(),
+                aggregation.getMessageType(), normalizeReference(aggregation.getTransactionReference()));
+    }
+
+    private static String normalizeReference(String reference) {
+        return reference == null ? "" : reference.trim();
+    }
+}
@@ -0,0 +1,162 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.config.ExecutorBackpressure;
+import com.bank.mt.domain.AggregationResult;
+import com.bank.mt.domain.MtStatement;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes aggregation work by a hash of the group key to a fixed set of partitions.
+ * Each partition is a single-writer mailbox drained on the aggregationExecutor: at
+ * most one drain task per partition is in flight, so all pages of one group are
+ * aggregated one after another, never concurrently. That removes the @Version
+ * conflicts (DATABASE mode) and the lock contention (IN_MEMORY mode) seen when pages
+ * of one statement arrive together, while different groups spread across partitions.
+ *
+ * A partition that is not scheduled costs nothing — no thread is parked per partition.
+ * With at most one drain per partition in flight, the partition count is capped at what
+ * the executor holds (queue plus maximum threads), so drains only wait for room if the
+ * executor is shared; they never run on the submitting thread. Once the executor is shut
+ * down, pages still waiting in a mailbox fail with a RejectedExecutionException.
+ */
+@Component
+public class AggregationPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregationPartitions.class);
+
+    // Tasks drained per turn before the partition yields its executor thread
+    private static final int DRAIN_BATCH = 64;
+
+    private final AggregationEngine engine;
+    private final Executor executor;
+    private final Partition[] partitions;
+
+    public AggregationPartitions(AggregationEngine engine,
+                                 @Qualifier("aggregationExecutor") Executor executor,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${mt.aggregation.partitions:0}") int partitionCount) {
+        this.engine = engine;
+        this.executor = executor;
+        int requested = partitionCount > 0 ? partitionCount : Runtime.getRuntime().availableProcessors();
+        int count = Math.min(requested, ExecutorBackpressure.capacityOf(executor));
+        if (count < requested) {
+            log.warn("Aggregation partitions capped at {} (requested {}): the aggregation executor holds no more drains",
+                    count, requested);
+        }
+        this.partitions = new Partition[count];
+        for (int i = 0; i < count; i++) {
+            Partition partition = new Partition();
+            partitions[i] = partition;
+            Gauge.builder("mt.aggregation.partition.queue", partition.depth, AtomicInteger::get)
+                    .tag("partition", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        log.info("Aggregation partitions: {}", count);
+    }
+
+    /** Aggregates on the statement's partition and waits for the result. */
+    public AggregationResult aggregate(MtStatement statement, Long odsMessageId) {
+        try {
+            return submit(statement, odsMessageId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<AggregationResult> submit(MtStatement statement, Long odsMessageId) {
+        return submit(statement, odsMessageId, () -> { });
+    }
+
+    /** As {@link #submit(MtStatement, Long)}; {@code onStart} runs when the page is picked up. */
+    public CompletableFuture<AggregationResult> submit(MtStatement statement, Long odsMessageId, Runnable onStart) {
+        // Single pages form no group and need no ordering
+        if (statement.getTotalPages() == 1 && statement.getPageNumber() == 1) {
+            try {
+                onStart.run();
+                return CompletableFuture.completedFuture(engine.aggregate(statement, odsMessageId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<AggregationResult> future = new CompletableFuture<>();
+        Partition partition = partitions[partitionOf(AggregationKey.of(statement), partitions.length)];
+        partition.mailbox.add(new Job(future, () -> {
+            try {
+                onStart.run();
+                future.complete(engine.aggregate(statement, odsMessageId));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }));
+        partition.depth.incrementAndGet();
+        schedule(partition);
+        return future;
+    }
+
+    static int partitionOf(AggregationKey key, int count) {
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), count);
+    }
+
+    private void schedule(Partition partition) {
+        if (!partition.scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            ExecutorBackpressure.execute(executor, () -> drain(partition));
+        } catch (RejectedExecutionException e) {
+            // Shut down: nothing will drain this partition again
+            for (Job job; (job = partition.mailbox.poll()) != null; ) {
+                partition.depth.decrementAndGet();
+                job.future.completeExceptionally(e);
+            }
+            partition.scheduled.set(false);
+        }
+    }
+
+    private void drain(Partition partition) {
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Job job = partition.mailbox.poll();
+                if (job == null) {
+                    break;
+                }
+                partition.depth.decrementAndGet();
+                job.task.run();
+            }
+        } finally {
+            partition.scheduled.set(false);
+        }
+        // Work that arrived after the last poll, or the rest of a long queue
+        if (!partition.mailbox.isEmpty()) {
+            schedule(partition);
+        }
+    }
+
+    private record Job(CompletableFuture<AggregationResult> future, Runnable task) {
+    }
+
+    private static final class Partition {
+        private final Queue<Job> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicInteger depth = new AtomicInteger();
+    }
+}
@@ -0,0 +1,215 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.swift.MtMessageIndex;
+import com.bank.mt.swift.MtTagView;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Assembles the single logical statement delivered when a multi-page aggregation
+ * completes. Shared by the database and in-memory aggregation engines.
+ */
+final class CombinedStatementBuilder {
+
+    private CombinedStatementBuilder() {
+    }
+
+    /**
+     * Combined statement for a completed aggregation. {@code pages} may be in any order;
+     * {@code lastPage} is the page that completed the group (sender/receiver/ref source).
+     */
+    static MtStatement build(String messageType, String accountNumber, String statementNumber,
+                             List<MtAggregationPage> pages, MtStatement lastPage) {
+        List<MtAggregationPage> sortedPages = pages.stream()
+                .sorted(Comparator.comparingInt(MtAggregationPage::getPageNumber))
+                .toList();
+
+        return combined(messageType, accountNumber, statementNumber, lastPage,
+                buildRawMessage(sortedPages, lastPage), combinedBalance(sortedPages));
+    }
+
+    /** Combined statement whose message was already assembled page by page, see {@link StatementFold}. */
+    static MtStatement combined(String messageType, String accountNumber, String statementNumber,
+                                MtStatement lastPage, String rawMessage, StatementBalance balance) {
+        MtStatement combined = new MtStatement();
+        combined.setMessageType(messageType);
+        combined.setAccountNumber(accountNumber);
+        combined.setStatementNumber(statementNumber);
+        combined.setPageNumber(1);
+        combined.setTotalPages(1); // combined = single logical statement
+        combined.setSenderBic(lastPage.getSenderBic());
+        combined.setReceiverBic(lastPage.getReceiverBic());
+        combined.setTransactionReference(lastPage.getTransactionReference());
+        combined.setRawMessage(rawMessage);
+        combined.setBalance(balance);
+        return combined;
+    }
+
+    /**
+     * First page's opening, summed page movements and last page's closing, taken from
+     * the totals stored with each page. Null if any page was not verified, in which
+     * case the validator falls back to reading the combined message.
+     */
+    private static StatementBalance combinedBalance(List<MtAggregationPage> sortedPages) {
+        long movement = 0;
+        for (MtAggregationPage page : sortedPages) {
+            if (page.getNetMovement() == null) {
+                return null;
+            }
+            movement += page.getNetMovement();
+        }
+        return new StatementBalance(sortedPages.get(0).getOpeningBalance(), movement,
+                sortedPages.get(sortedPages.size() - 1).getClosingBalance());
+    }
+
+    /**
+     * Builds a single combined SWIFT FIN message from multiple pages.
+     *
+     * Uses the header (Block 1 + Block 2) from the first page,
+     * takes header tags (:20:, :25:, :28C:) and opening balance (:60F:) from page 1,
+     * merges transaction lines (:61:, :86:) from all pages in order,
+     * and takes the final closing balance (:62F:) and summary tags from the last page.
+     *
+     * Intermediate balance tags (:60M:, :62M:) are discarded.
+     *
+     * Two passes over the tag offsets: the first records which slices of each page
+     * to keep (runs of adjacent kept tags merge into one slice) and sums their length;
+     * the second appends the slices to a builder presized to exactly that length.
+     *
+     * Package-private as a seam for the JMH benchmarks.
+     */
+    static String buildRawMessage(List<MtAggregationPage> sortedPages, MtStatement current) {
+        int pageCount = sortedPages.size();
+        CharSequence[] sources = new CharSequence[pageCount];
+        int[][] slices = new int[pageCount][];
+        int[] sliceEnds = new int[pageCount];
+        String header = "";
+        int length = BLOCK4_END.length();
+
+        for (int p = 0; p < pageCount; p++) {
+            MtAggregationPage page = sortedPages.get(p);
+            // The page that completed the group is already indexed by the parser
+            MtTagView view = page.getPageNumber() == current.getPageNumber()
+                    ? current.getTagView()
+                    : MtTagView.of(page.getRawMessage());
+            MtMessageIndex index = view.index();
+            CharSequence source = index.source();
+            boolean isFirst = (p == 0);
+            boolean isLast = (p == pageCount - 1);
+
+            // Extract SWIFT header (Block 1 + Block 2) from first page
+            if (isFirst) {
+                header = view.swiftHeader();
+                length += header.length() + BLOCK4_START.length();
+            }
+
+            // (start, end) pairs; each slice is written followed by '\n'
+            int[] s = new int[16];
+            int n = 0;
+            for (int i = 0; i < index.tagCount(); i++) {
+                if (!isKept(index, i, isFirst, isLast)) continue;
+
+                int start = index.tagStart(i);
+                int end = index.valueEnd(i);
+                if (n > 0 && s[n - 1] == start - 1 && source.charAt(start - 1) == '\n') {
+                    length += end - s[n - 1];
+                    s[n - 1] = end;
+                } else {
+                    if (n == s.length) {
+                        s = Arrays.copyOf(s, n * 2);
+                    }
+                    s[n++] = start;
+                    s[n++] = end;
+                    length += end - start + 1;
+                }
+            }
+            sources[p] = source;
+            slices[p] = s;
+            sliceEnds[p] = n;
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(header).append(BLOCK4_START);
+        for (int p = 0; p < pageCount; p++) {
+            int[] s = slices[p];
+            for (int k = 0; k < sliceEnds[p]; k += 2) {
+                sb.append(sources[p], s[k], s[k + 1]).append('\n');
+            }
+        }
+        return sb.append(BLOCK4_END).toString();
+    }
+
+    /**
+     * One page cut for incremental folding. The page's kept tags are split at its first
+     * closing tag: {@code body} holds everything before it, {@code tail} what follows as an
+     * intermediate page keeps it, {@code lastTail} what follows as the last page keeps it.
+     * Concatenating the pages' bodies and tails in page order, with the last page's
+     * {@code lastTail} instead of its {@code tail}, gives the block 4 content
+     * {@link #buildRawMessage} produces. {@code header} is null except for the first page.
+     */
+    record PageFold(String header, String body, String tail, String lastTail) {
+    }
+
+    static PageFold fold(MtTagView view, boolean isFirst) {
+        MtMessageIndex index = view.index();
+        CharSequence source = index.source();
+        int tagCount = index.tagCount();
+        int closing = 0;
+        while (closing < tagCount && !isAnyOf(index, closing, CLOSING_TAGS)) {
+            closing++;
+        }
+        String header = isFirst ? view.swiftHeader() + BLOCK4_START : null;
+        return new PageFold(header,
+                keptTags(index, source, 0, closing, isFirst, false),
+                keptTags(index, source, closing, tagCount, isFirst, false),
+                keptTags(index, source, closing, tagCount, isFirst, true));
+    }
+
+    private static String keptTags(MtMessageIndex index, CharSequence source, int from, int to,
+                                   boolean isFirst, boolean isLast) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (isKept(index, i, isFirst, isLast)) {
+                sb.append(source, index.tagStart(i), index.valueEnd(i)).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isKept(MtMessageIndex index, int i, boolean isFirst, boolean isLast) {
+        // Skip intermediate balance tags — not part of combined output
+        if (index.tagIs(i, "60M") || index.tagIs(i, "62M")) return false;
+
+        // Header + opening balance tags: only from first page
+        if (isAnyOf(index, i, HEADER_TAGS)) return isFirst;
+
+        // Closing balance + summary tags: only from last page
+        if (isAnyOf(index, i, CLOSING_TAGS)) return isLast;
+
+        // Transaction lines (:61:, :86:, etc.): from all pages
+        return true;
+    }
+
+    private static final String BLOCK4_START = "{4:\n";
+    static final String BLOCK4_END = "-}";
+
+    // Tags from first page only: header fields + opening balance
+    private static final String[] HEADER_TAGS = {
+            "20", "21", "25", "28C", "34F", "13D", "60F"};
+
+    // Tags from last page only: closing balance + summary
+    private static final String[] CLOSING_TAGS = {
+            "62F", "64", "65", "90D", "90C"};
+
+    private static boolean isAnyOf(MtMessageIndex index, int tag, String[] names) {
+        for (String name : names) {
+            if (index.tagIs(tag, name)) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.AggregationStatus;
+import com.bank.mt.repository.MtAggregationPageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory pre-filter for duplicate page detection in DATABASE mode.
+ *
+ * Keeps, per in-progress aggregation, the first 64 bits of every page checksum in a
+ * primitive long set. A prefix that is not in the set means the page is definitely
+ * new, so the existsByAggregationIdAndChecksum query is skipped; a prefix hit may be a
+ * collision and is confirmed against the database. An aggregation this node has not
+ * seen (created elsewhere, or before the last restart) is hydrated from its pages on
+ * first use, so the filter never answers "new" without knowing every stored page.
+ *
+ * Rebuilt from the page table at startup; entries are dropped when an aggregation
+ * completes or expires.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "DATABASE", matchIfMissing = true)
+public class DuplicatePageFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicatePageFilter.class);
+
+    private final MtAggregationPageRepository pageRepo;
+    private final Map<Long, LongHashSet> seen = new ConcurrentHashMap<>();
+    private final Counter skippedCounter;
+    private final Counter checkedCounter;
+
+    public DuplicatePageFilter(MtAggregationPageRepository pageRepo, MeterRegistry meterRegistry) {
+        this.pageRepo = pageRepo;
+        this.skippedCounter = meterRegistry.counter("mt.aggregation.duplicate-filter.skipped");
+        this.checkedCounter = meterRegistry.counter("mt.aggregation.duplicate-filter.checked");
+        meterRegistry.gauge("mt.aggregation.duplicate-filter.aggregations", seen, Map::size);
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        seen.clear();
+        List<Object[]> rows = pageRepo.findChecksumsByAggregationStatus(AggregationStatus.IN_PROGRESS);
+        for (Object[] row : rows) {
+            seen.computeIfAbsent((Long) row[0], id -> new LongHashSet(4)).add(prefix((String) row[1]));
+        }
+        if (!rows.isEmpty()) {
+            log.info("Duplicate page filter rebuilt: {} pages across {} aggregations", rows.size(), seen.size());
+        }
+    }
+
+    /** True if the aggregation already holds a page with this checksum. */
+    public boolean isDuplicate(Long aggregationId, String checksum) {
+        LongHashSet prefixes = seen.get(aggregationId);
+        if (prefixes == null) {
+            prefixes = hydrate(aggregationId);
+        }
+        boolean possible;
+        synchronized (prefixes) {
+            possible = prefixes.contains(prefix(checksum));
+        }
+        if (!possible) {
+            skippedCounter.increment();
+            return false;
+        }
+        checkedCounter.increment();
+        return pageRepo.existsByAggregationIdAndChecksum(aggregationId, checksum);
+    }
+
+    /**
+     * Records a page about to be stored. If the surrounding transaction rolls back the
+     * prefix stays behind, which only costs one confirming query later.
+     */
+    public void record(Long aggregationId, String checksum) {
+        LongHashSet prefixes = seen.computeIfAbsent(aggregationId, id -> new LongHashSet(4));
+        synchronized (prefixes) {
+            prefixes.add(prefix(checksum));
+        }
+    }
+
+    /** The aggregation completed or expired; no further pages are accepted for it. */
+    public void forget(Long aggregationId) {
+        seen.remove(aggregationId);
+    }
+
+    /**
+     * Loads an unseen aggregation's stored checksums. The query runs outside the map —
+     * computeIfAbsent would hold the bin lock, and with it other aggregation ids, for
+     * its whole duration. If another thread got there first its set is topped up instead.
+     */
+    private LongHashSet hydrate(Long aggregationId) {
+        List<String> checksums = pageRepo.findChecksumsByAggregationId(aggregationId);
+        LongHashSet loaded = new LongHashSet(Math.max(4, checksums.size()));
+        for (String checksum : checksums) {
+            loaded.add(prefix(checksum));
+        }
+        LongHashSet existing = seen.putIfAbsent(aggregationId, loaded);
+        if (existing == null) {
+            return loaded;
+        }
+        synchronized (existing) {
+            for (String checksum : checksums) {
+                existing.add(prefix(checksum));
+            }
+        }
+        return existing;
+    }
+
+    /** First 64 bits of the hex SHA-256; anything shorter falls back to its hash code. */
+    static long prefix(String checksum) {
+        if (checksum == null) {
+            return 0L;
+        }
+        if (checksum.length() < 16) {
+            return checksum.hashCode();
+        }
+        return Long.parseUnsignedLong(checksum, 0, 16, 16);
+    }
+}
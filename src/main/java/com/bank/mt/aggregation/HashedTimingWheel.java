@@ -0,0 +1,94 @@
+package com.bank.mt.aggregation;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timing wheel of deadlines keyed by {@code K}.
+ *
+ * A deadline is hashed to slot {@code (deadline / tick) % slots}; {@link #advance}
+ * visits only the slots whose ticks have ended since the last call, so expiry costs
+ * O(entries due + stale entries in those slots) per tick instead of a full scan.
+ * Deadlines further out than one revolution stay in their slot until their round comes.
+ *
+ * {@link #schedule} and {@link #cancel} may be called from any thread; {@link #advance}
+ * from one thread at a time. Cancelling is O(1): the key is dropped from the deadline
+ * map and its slot entry is discarded lazily when the slot is next visited.
+ */
+public final class HashedTimingWheel<K> {
+
+    private final long tickMillis;
+    private final Set<K>[] slots;
+    private final Map<K, Long> deadlines = new ConcurrentHashMap<>();
+    private volatile long lastTick; // last tick whose slot advance() has processed
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMillis and slotCount must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new Set[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastTick = nowMillis / tickMillis - 1;
+    }
+
+    /** Schedules (or reschedules) {@code key} to expire at {@code deadlineMillis}. */
+    public void schedule(K key, long deadlineMillis) {
+        // Overdue deadlines go into the next slot to be visited rather than one already passed
+        long due = Math.max(deadlineMillis, (lastTick + 1) * tickMillis);
+        deadlines.put(key, due);
+        slots[slotOf(due)].add(key);
+    }
+
+    public void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * Removes and returns the due keys of every tick that has ended by {@code nowMillis},
+     * so a key fires at most one tick after its deadline.
+     */
+    public List<K> advance(long nowMillis) {
+        long endedTick = nowMillis / tickMillis - 1;
+        List<K> expired = new ArrayList<>();
+        if (endedTick <= lastTick) {
+            return expired;
+        }
+        // After a stall longer than one revolution every slot is due once
+        long from = Math.max(lastTick + 1, endedTick - slots.length + 1);
+        for (long tick = from; tick <= endedTick; tick++) {
+            int slot = (int) Math.floorMod(tick, (long) slots.length);
+            Iterator<K> it = slots[slot].iterator();
+            while (it.hasNext()) {
+                K key = it.next();
+                Long deadline = deadlines.get(key);
+                if (deadline == null || slotOf(deadline) != slot) {
+                    it.remove(); // cancelled, or rescheduled into another slot
+                } else if (deadline <= nowMillis) {
+                    it.remove();
+                    if (deadlines.remove(key, deadline)) {
+                        expired.add(key);
+                    }
+                }
+                // else: due in a later revolution
+            }
+        }
+        lastTick = endedTick;
+        return expired;
+    }
+
+    private int slotOf(long deadlineMillis) {
+        return (int) Math.floorMod(deadlineMillis / tickMillis, (long) slots.length);
+    }
+}
@@ -0,0 +1,353 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.*;
+import com.bank.mt.parsing.ParseResultCache;
+import com.bank.mt.repository.MtAggregationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IN_MEMORY mode: aggregation state lives in a concurrent map keyed by
+ * (statement, account, type, reference). Lookup, duplicate detection and the
+ * completeness check are in-memory; persistence is handed to the write-behind
+ * {@link AggregationJournal}, so the message thread never waits on a write. The only
+ * query on the message path is made by the first page of a group the map does not know,
+ * to refuse a late resend of a statement closed before its tombstone was evicted.
+ *
+ * Open groups are registered in a {@link HashedTimingWheel} so a timeout fires within one
+ * tick (mt.aggregation.expiry-tick-ms); a low-frequency sweep over the map evicts tombstones
+ * and catches anything the wheel missed.
+ *
+ * Completed and rejected groups stay in the map as tombstones (pages released) for
+ * one expiry window, so late resends are still recognised. On startup the map is
+ * rebuilt from the journalled tables: open groups with their pages, plus tombstones
+ * for groups closed within the window.
+ */
+@Service
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "IN_MEMORY")
+public class InMemoryAggregationEngine implements AggregationEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryAggregationEngine.class);
+
+    private final MtAggregationRepository aggregationRepo;
+    private final AggregationJournal journal;
+    private final ParseResultCache parseResultCache;
+    private final PageSpill spill;
+    private final Map<AggregationKey, PendingAggregation> groups = new ConcurrentHashMap<>();
+    private final HashedTimingWheel<AggregationKey> expiryWheel;
+    private final Counter completedCounter;
+    private final Counter rejectedCounter;
+
+    @Value("${mt.aggregation.expiry-minutes:60}")
+    private int expiryMinutes;
+
+    public InMemoryAggregationEngine(MtAggregationRepository aggregationRepo,
+                                     AggregationJournal journal,
+                                     ParseResultCache parseResultCache,
+                                     PageSpill spill,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${mt.aggregation.expiry-tick-ms:1000}") long tickMillis,
+                                     @Value("${mt.aggregation.expiry-wheel-slots:512}") int wheelSlots) {
+        this.aggregationRepo = aggregationRepo;
+        this.journal = journal;
+        this.parseResultCache = parseResultCache;
+        this.spill = spill;
+        this.completedCounter = meterRegistry.counter("mt.aggregation.completed");
+        this.rejectedCounter = meterRegistry.counter("mt.aggregation.rejected");
+        this.expiryWheel = new HashedTimingWheel<>(tickMillis, wheelSlots, System.currentTimeMillis());
+        meterRegistry.gauge("mt.aggregation.memory.groups", groups, Map::size);
+        meterRegistry.gauge("mt.aggregation.expiry.scheduled", expiryWheel, HashedTimingWheel::size);
+    }
+
+    @Override
+    public AggregationResult aggregate(MtStatement statement, Long odsMessageId) {
+        // Single-page statements bypass aggregation (totalPages=0 means unknown, NOT single)
+        if (statement.getTotalPages() == 1 && statement.getPageNumber() == 1) {
+            log.info("Single-page {} ref={} — skipping aggregation",
+                    statement.getMessageType(), statement.getTransactionReference());
+            completedCounter.increment();
+            return AggregationResult.ready(statement, List.of(odsMessageId));
+        }
+
+        String checksum = parseResultCache.checksum(statement);
+        AggregationKey key = AggregationKey.of(statement);
+        PendingAggregation group = groups.computeIfAbsent(key, k -> {
+            PendingAggregation created = new PendingAggregation(statement.getTotalPages(), LocalDateTime.now());
+            created.unverified = true;
+            expiryWheel.schedule(k, deadline(created.createdAt));
+            return created;
+        });
+
+        synchronized (group) {
+            // A new group may be a late resend of one whose tombstone is already gone
+            if (group.unverified) {
+                group.unverified = false;
+                closeIfClosedInDatabase(key, group);
+            }
+
+            // Already completed or rejected — skip
+            if (group.status != AggregationStatus.IN_PROGRESS) {
+                log.warn("Aggregation stmt={} acct={} already in status {}",
+                        key.statementNumber(), key.accountNumber(), group.status);
+                return AggregationResult.rejected();
+            }
+
+            // Duplicate page detection via checksum
+            if (group.checksums.contains(checksum)) {
+                log.warn("Duplicate page detected for aggregation stmt={} acct={} checksum={}",
+                        key.statementNumber(), key.accountNumber(), checksum);
+                rejectedCounter.increment();
+                return AggregationResult.rejected();
+            }
+
+            // A page number that arrives twice never counts towards completion
+            if (!group.presence.add(statement.getPageNumber())) {
+                log.warn("Page {} already received for aggregation stmt={} acct={} with different content",
+                        statement.getPageNumber(), key.statementNumber(), key.accountNumber());
+                rejectedCounter.increment();
+                return AggregationResult.rejected();
+            }
+            group.checksums.add(checksum);
+
+            MtAggregationPage page = new MtAggregationPage();
+            page.setPageNumber(statement.getPageNumber());
+            page.setRawMessage(statement.getRawMessage());
+            page.setChecksum(checksum);
+            page.setOdsMessageId(odsMessageId);
+            StatementBalance balance = statement.getBalance();
+            if (balance != null) {
+                page.setOpeningBalance(balance.opening());
+                page.setNetMovement(balance.movement());
+                page.setClosingBalance(balance.closing());
+            }
+            group.add(page, spill.store(statement.getRawMessage()));
+
+            // Update total pages if we learn it from a later page
+            if (statement.getTotalPages() > group.totalPages) {
+                group.totalPages = statement.getTotalPages();
+            }
+
+            // Complete exactly when pages 1..total have all arrived
+            boolean complete = group.presence.isComplete(group.totalPages);
+            if (complete) {
+                group.status = AggregationStatus.COMPLETED;
+            }
+            journal.pageAdded(key, page, group.totalPages, group.pages.size(),
+                    group.presence.toBytes(), group.status);
+
+            if (!complete) {
+                log.info("Aggregation in progress for stmt={} acct={} ({}/{} pages)",
+                        key.statementNumber(), key.accountNumber(), group.pages.size(), group.totalPages);
+                return AggregationResult.pending();
+            }
+
+            MtStatement combined = CombinedStatementBuilder.build(key.messageType(),
+                    key.accountNumber(), key.statementNumber(), group.readPages(spill), statement);
+            List<Long> relatedOdsIds = group.odsMessageIds();
+            group.close(spill);
+            expiryWheel.cancel(key);
+            log.info("Aggregation complete for stmt={} acct={} ({} pages)",
+                    key.statementNumber(), key.accountNumber(), group.totalPages);
+            completedCounter.increment();
+            return AggregationResult.ready(combined, relatedOdsIds);
+        }
+    }
+
+    @Scheduled(fixedRateString = "${mt.aggregation.expiry-tick-ms:1000}")
+    public void fireDueExpiries() {
+        for (AggregationKey key : expiryWheel.advance(System.currentTimeMillis())) {
+            PendingAggregation group = groups.get(key);
+            if (group == null) {
+                continue;
+            }
+            synchronized (group) {
+                if (group.status == AggregationStatus.IN_PROGRESS) {
+                    reject(key, group);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reconciliation sweep: rejects open groups older than the window that the wheel
+     * did not fire, and drops tombstones older than the window.
+     */
+    @Scheduled(fixedDelayString = "${mt.aggregation.scheduler-interval-ms:900000}")
+    public void expireStaleAggregations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(expiryMinutes);
+        for (Map.Entry<AggregationKey, PendingAggregation> e : groups.entrySet()) {
+            AggregationKey key = e.getKey();
+            PendingAggregation group = e.getValue();
+            synchronized (group) {
+                if (group.status == AggregationStatus.IN_PROGRESS) {
+                    if (group.createdAt.isBefore(cutoff)) {
+                        expiryWheel.cancel(key);
+                        reject(key, group);
+                    }
+                } else if (group.closedAt.isBefore(cutoff) && groups.remove(key, group)) {
+                    journal.forget(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns a group just opened for {@code key} into a tombstone if the tables already hold
+     * a closed aggregation for it, so the page is rejected instead of journalled into a
+     * closed row (or a second row for the same key). Caller holds the lock.
+     */
+    private void closeIfClosedInDatabase(AggregationKey key, PendingAggregation group) {
+        Optional<MtAggregation> existing = aggregationRepo
+                .findByStatementNumberAndAccountNumberAndMessageTypeAndTransactionReference(
+                        key.statementNumber(), key.accountNumber(), key.messageType(), key.transactionReference());
+        if (existing.isEmpty() || existing.get().getStatus() == AggregationStatus.IN_PROGRESS) {
+            return;
+        }
+        MtAggregation closed = existing.get();
+        log.warn("Late page for aggregation {} stmt={} acct={}, closed as {}",
+                closed.getId(), key.statementNumber(), key.accountNumber(), closed.getStatus());
+        expiryWheel.cancel(key);
+        group.status = closed.getStatus();
+        group.closedAt = LocalDateTime.now();
+        journal.register(key, closed.getId());
+    }
+
+    /** Marks the group REJECTED and journals it, which marks its ODS messages FAILED. Caller holds the lock. */
+    private void reject(AggregationKey key, PendingAggregation group) {
+        group.status = AggregationStatus.REJECTED;
+        journal.statusChanged(key, group.totalPages, group.pages.size(), group.presence.toBytes(), group.status,
+                group.odsMessageIds(), "Aggregation timeout — not all pages received within "
+                        + expiryMinutes + " minutes");
+        rejectedCounter.increment();
+        log.warn("Rejected aggregation stmt={} acct={} ({}/{} pages received)",
+                key.statementNumber(), key.accountNumber(), group.pages.size(), group.totalPages);
+        group.close(spill);
+    }
+
+    private long deadline(LocalDateTime createdAt) {
+        return createdAt.plusMinutes(expiryMinutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Override
+    public List<InFlightAggregation> inFlight() {
+        List<InFlightAggregation> result = new ArrayList<>();
+        groups.forEach((key, group) -> {
+            synchronized (group) {
+                if (group.status == AggregationStatus.IN_PROGRESS) {
+                    result.add(new InFlightAggregation(key.statementNumber(), key.accountNumber(),
+                            key.messageType(), key.transactionReference(), group.totalPages,
+                            group.presence.count(), group.presence.missingRanges(group.totalPages),
+                            group.createdAt));
+                }
+            }
+        });
+        return result;
+    }
+
+    /** Reloads open groups and recent tombstones from the journalled tables. */
+    @PostConstruct
+    public void rebuild() {
+        groups.clear();
+        List<MtAggregation> open = aggregationRepo.findWithPagesByStatus(AggregationStatus.IN_PROGRESS);
+        for (MtAggregation agg : open) {
+            AggregationKey key = AggregationKey.of(agg);
+            PendingAggregation group = new PendingAggregation(agg.getTotalPages(), agg.getCreatedAt());
+            for (MtAggregationPage stored : agg.getPages()) {
+                group.add(stored, spill.store(stored.getRawMessage()));
+                group.checksums.add(stored.getChecksum());
+                group.presence.add(stored.getPageNumber());
+            }
+            groups.put(key, group);
+            expiryWheel.schedule(key, deadline(group.createdAt));
+            journal.register(key, agg.getId());
+        }
+
+        LocalDateTime since = LocalDateTime.now().minusMinutes(expiryMinutes);
+        List<MtAggregation> closed = aggregationRepo
+                .findByStatusNotAndUpdatedSince(AggregationStatus.IN_PROGRESS, since);
+        for (MtAggregation agg : closed) {
+            PendingAggregation tombstone = new PendingAggregation(agg.getTotalPages(), agg.getCreatedAt());
+            tombstone.status = agg.getStatus();
+            tombstone.closedAt = agg.getUpdatedAt() != null ? agg.getUpdatedAt() : LocalDateTime.now();
+            AggregationKey key = AggregationKey.of(agg);
+            groups.put(key, tombstone);
+            journal.register(key, agg.getId());
+        }
+
+        if (!open.isEmpty() || !closed.isEmpty()) {
+            log.info("Rebuilt in-memory aggregation state: {} open groups, {} recently closed",
+                    open.size(), closed.size());
+        }
+    }
+
+    /** Page metadata with its body held by the {@link PageSpill}. */
+    private record HeldPage(MtAggregationPage page, PageSpill.Body body) {
+    }
+
+    /** Mutable group state, guarded by the instance's monitor. */
+    private static final class PendingAggregation {
+
+        private final LocalDateTime createdAt;
+        private final List<HeldPage> pages = new ArrayList<>();
+        private final Set<String> checksums = new HashSet<>();
+        private final PagePresence presence = new PagePresence();
+        private AggregationStatus status = AggregationStatus.IN_PROGRESS;
+        private int totalPages;
+        private LocalDateTime closedAt;
+        /** Opened by a page, not rebuilt: the tables may still hold a closed group for the key. */
+        private boolean unverified;
+
+        PendingAggregation(int totalPages, LocalDateTime createdAt) {
+            this.totalPages = Math.max(totalPages, 0);
+            this.createdAt = createdAt != null ? createdAt : LocalDateTime.now();
+        }
+
+        /** Keeps the page's metadata; its raw message is only reachable through {@code body}. */
+        void add(MtAggregationPage source, PageSpill.Body body) {
+            MtAggregationPage page = new MtAggregationPage();
+            page.setPageNumber(source.getPageNumber());
+            page.setChecksum(source.getChecksum());
+            page.setOdsMessageId(source.getOdsMessageId());
+            page.setOpeningBalance(source.getOpeningBalance());
+            page.setNetMovement(source.getNetMovement());
+            page.setClosingBalance(source.getClosingBalance());
+            pages.add(new HeldPage(page, body));
+        }
+
+        /** The pages with their raw messages, spilled bodies read back from their segment. */
+        List<MtAggregationPage> readPages(PageSpill spill) {
+            for (HeldPage held : pages) {
+                held.page.setRawMessage(spill.read(held.body));
+            }
+            return pages.stream().map(HeldPage::page).toList();
+        }
+
+        List<Long> odsMessageIds() {
+            return pages.stream()
+                    .map(held -> held.page.getOdsMessageId())
+                    .filter(id -> id != null)
+                    .distinct()
+                    .toList();
+        }
+
+        /** Keeps the group as a tombstone; page bodies are already journalled. */
+        void close(PageSpill spill) {
+            closedAt = LocalDateTime.now();
+            pages.forEach(held -> spill.release(held.body));
+            pages.clear();
+            checksums.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.parsing.MtParser;
+
+import java.util.BitSet;
+
+/**
+ * Which pages of an aggregation have arrived, as a bitset indexed by page number.
+ *
+ * Tracks the length of the contiguous run 1..n of received pages, so completion is an
+ * O(1) comparison with the total page count: it fires exactly when the last gap fills,
+ * whatever order the pages arrive in, and a page number received twice can never
+ * count towards it. Persisted as {@link BitSet#toByteArray()}, so page numbers are capped
+ * at {@link MtParser#MAX_PAGE_NUMBER} to bound the bitmap at about 12 KB.
+ */
+public final class PagePresence {
+
+    private final BitSet pages;
+    private int contiguous; // pages 1..contiguous have all arrived
+
+    public PagePresence() {
+        this(new BitSet());
+    }
+
+    private PagePresence(BitSet pages) {
+        this.pages = pages;
+        this.contiguous = pages.nextClearBit(1) - 1;
+    }
+
+    public static PagePresence fromBytes(byte[] bytes) {
+        return new PagePresence(bytes == null ? new BitSet() : BitSet.valueOf(bytes));
+    }
+
+    public static PagePresence of(Iterable<Integer> pageNumbers) {
+        PagePresence presence = new PagePresence();
+        for (int page : pageNumbers) {
+            presence.add(page);
+        }
+        return presence;
+    }
+
+    /** Marks the page received. Returns false if it already was (or is not a valid page number). */
+    public boolean add(int page) {
+        if (page < 1 || page > MtParser.MAX_PAGE_NUMBER || pages.get(page)) {
+            return false;
+        }
+        pages.set(page);
+        if (page == contiguous + 1) {
+            contiguous = pages.nextClearBit(page) - 1;
+        }
+        return true;
+    }
+
+    public boolean contains(int page) {
+        return page >= 1 && page <= MtParser.MAX_PAGE_NUMBER && pages.get(page);
+    }
+
+    public int count() {
+        return pages.cardinality();
+    }
+
+    public boolean isComplete(int totalPages) {
+        return totalPages > 0 && contiguous >= totalPages;
+    }
+
+    /**
+     * Missing page ranges, e.g. "2-4,7". Up to {@code totalPages} when known; otherwise up
+     * to the highest page received, with a trailing "+" since later pages may still come.
+     */
+    public String missingRanges(int totalPages) {
+        int last = totalPages > 0 ? totalPages : Math.max(pages.length() - 1, 0);
+        StringBuilder sb = new StringBuilder();
+        int from = pages.nextClearBit(contiguous + 1);
+        while (from <= last) {
+            int next = pages.nextSetBit(from);
+            int to = next < 0 || next > last ? last : next - 1;
+            appendRange(sb, from, to);
+            from = pages.nextClearBit(to + 1);
+        }
+        if (totalPages <= 0) {
+            if (sb.length() > 0) sb.append(',');
+            sb.append(last + 1).append('+');
+        }
+        return sb.toString();
+    }
+
+    public byte[] toBytes() {
+        return pages.toByteArray();
+    }
+
+    private static void appendRange(StringBuilder sb, int from, int to) {
+        if (sb.length() > 0) sb.append(',');
+        sb.append(from);
+        if (to > from) sb.append('-').append(to);
+    }
+}
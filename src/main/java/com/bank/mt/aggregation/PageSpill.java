@@ -0,0 +1,213 @@
+package com.bank.mt.aggregation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory budget for the page bodies of in-flight IN_MEMORY aggregations.
+ *
+ * Bodies are kept on-heap while the resident total stays within
+ * mt.aggregation.spill.memory-budget-bytes. Past that, a body is appended to the
+ * current segment file under mt.aggregation.spill.dir and the group keeps only its
+ * offset and length; it is read back through a memory-mapped view of the segment when
+ * the group completes. Segments roll over at mt.aggregation.spill.segment-bytes and are
+ * deleted once every body in them has been released.
+ *
+ * Segments are scratch space, not a recovery source: the journalled tables are, so
+ * leftover segments are deleted at startup and on shutdown.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "IN_MEMORY")
+public class PageSpill {
+
+    private static final Logger log = LoggerFactory.getLogger(PageSpill.class);
+
+    private static final String SEGMENT_PREFIX = "mt-spill-";
+
+    private final long budgetBytes;
+    private final long segmentBytes;
+    private final Path directory;
+    private final AtomicLong residentBytes = new AtomicLong();
+    private final AtomicLong spilledBytes = new AtomicLong();
+    private final Counter spilledCounter;
+    private Segment active; // guarded by this
+    private long nextSegmentId;
+
+    public PageSpill(MeterRegistry meterRegistry,
+                     @Value("${mt.aggregation.spill.memory-budget-bytes:268435456}") long budgetBytes,
+                     @Value("${mt.aggregation.spill.segment-bytes:67108864}") long segmentBytes,
+                     @Value("${mt.aggregation.spill.dir:${java.io.tmpdir}/mt-spill}") String directory) {
+        this.budgetBytes = budgetBytes;
+        this.segmentBytes = Math.min(Math.max(segmentBytes, 1 << 16), Integer.MAX_VALUE); // one mapping per segment
+        this.directory = Path.of(directory);
+        this.spilledCounter = meterRegistry.counter("mt.aggregation.spill.pages");
+        meterRegistry.gauge("mt.aggregation.spill.resident.bytes", residentBytes, AtomicLong::get);
+        meterRegistry.gauge("mt.aggregation.spill.spilled.bytes", spilledBytes, AtomicLong::get);
+        deleteSegments();
+    }
+
+    /** Holds a page body, on-heap if the budget allows, otherwise in the current segment. */
+    Body store(String rawMessage) {
+        long size = rawMessage.length();
+        if (residentBytes.addAndGet(size) <= budgetBytes) {
+            return new Body(rawMessage, null, 0, 0);
+        }
+        residentBytes.addAndGet(-size);
+        byte[] bytes = rawMessage.getBytes(StandardCharsets.UTF_8);
+        Body body = append(bytes);
+        spilledBytes.addAndGet(bytes.length);
+        spilledCounter.increment();
+        return body;
+    }
+
+    String read(Body body) {
+        return body.resident != null ? body.resident : body.segment.read(body.offset, body.length);
+    }
+
+    /** The body is no longer needed: frees its share of the budget or of its segment. */
+    void release(Body body) {
+        if (body.resident != null) {
+            residentBytes.addAndGet(-body.resident.length());
+            return;
+        }
+        spilledBytes.addAndGet(-body.length);
+        synchronized (this) {
+            if (body.segment.release(body.length) && body.segment != active) {
+                body.segment.delete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (active != null) {
+            active.delete();
+            active = null;
+        }
+        deleteSegments();
+    }
+
+    private synchronized Body append(byte[] bytes) {
+        if (active == null || active.size + bytes.length > segmentBytes) {
+            if (active != null && active.live == 0) {
+                active.delete();
+            }
+            active = new Segment(directory.resolve(SEGMENT_PREFIX + (nextSegmentId++) + ".seg"));
+        }
+        long offset = active.append(bytes);
+        return new Body(null, active, offset, bytes.length);
+    }
+
+    private void deleteSegments() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*")) {
+            for (Path segment : stale) {
+                Files.deleteIfExists(segment);
+            }
+        } catch (IOException e) {
+            log.warn("Could not clear spill segments in {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /** A page body: either the resident string, or a slice of a segment. */
+    static final class Body {
+        private final String resident;
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+
+        private Body(String resident, Segment segment, long offset, int length) {
+            this.resident = resident;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        boolean isSpilled() {
+            return segment != null;
+        }
+    }
+
+    /** Append-only segment file; appends are serialised by the owning PageSpill. */
+    private static final class Segment {
+        private final Path file;
+        private final FileChannel channel;
+        private long size;
+        private long live;
+        private MappedByteBuffer mapped; // read view, remapped when reads pass its end
+
+        Segment(Path file) {
+            this.file = file;
+            try {
+                Files.createDirectories(file.getParent());
+                this.channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create spill segment " + file, e);
+            }
+        }
+
+        long append(byte[] bytes) {
+            long offset = size;
+            ByteBuffer src = ByteBuffer.wrap(bytes);
+            try {
+                while (src.hasRemaining()) {
+                    channel.write(src, offset + src.position());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write spill segment " + file, e);
+            }
+            size += bytes.length;
+            live += bytes.length;
+            return offset;
+        }
+
+        synchronized String read(long offset, int length) {
+            try {
+                if (mapped == null || offset + length > mapped.capacity()) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map spill segment " + file, e);
+            }
+            byte[] bytes = new byte[length];
+            mapped.get((int) offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /** True once no live body is left in the segment. */
+        boolean release(int length) {
+            live -= length;
+            return live == 0;
+        }
+
+        void delete() {
+            try {
+                channel.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete spill segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
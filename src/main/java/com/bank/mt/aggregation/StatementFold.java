@@ -0,0 +1,197 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.swift.MtTagView;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The combined statement of one aggregation, assembled while its pages arrive.
+ *
+ * Each page is cut into its {@link CombinedStatementBuilder.PageFold} on arrival and
+ * appended to a spool — on-heap or a temp file — in page order. A page that arrives
+ * ahead of a gap is buffered, already cut, until the gap fills. Completion only appends
+ * the last page's closing tags, so no page is re-read and the merge cost is spread over
+ * the group's lifetime instead of landing on the thread that receives the last page.
+ *
+ * Balances and ODS ids are folded the same way. Not thread-safe on its own; the
+ * aggregation partitions hand one group's pages over one at a time.
+ */
+final class StatementFold {
+
+    private final Spool spool;
+    private final TreeMap<Integer, FoldedPage> ahead = new TreeMap<>();
+    private final List<Long> odsMessageIds = new ArrayList<>();
+    private int nextPage = 1;
+    private FoldedPage lastFolded;
+    private long opening;
+    private long movement;
+    private boolean verified = true;
+
+    private StatementFold(Spool spool) {
+        this.spool = spool;
+    }
+
+    static StatementFold onHeap() {
+        return new StatementFold(new HeapSpool());
+    }
+
+    static StatementFold inFile(Path directory) {
+        return new StatementFold(new FileSpool(directory));
+    }
+
+    /** Folds a page, or buffers it until the pages before it have arrived. */
+    void add(int pageNumber, MtTagView view, Long odsMessageId, StatementBalance balance) {
+        if (pageNumber < nextPage || ahead.containsKey(pageNumber)) {
+            return; // already folded; the caller rejects repeated page numbers first
+        }
+        FoldedPage page = new FoldedPage(CombinedStatementBuilder.fold(view, pageNumber == 1), odsMessageId, balance);
+        if (pageNumber != nextPage) {
+            ahead.put(pageNumber, page);
+            return;
+        }
+        append(page);
+        for (FoldedPage next; (next = ahead.remove(nextPage)) != null; ) {
+            append(next);
+        }
+    }
+
+    /** True once pages 1..totalPages are folded and nothing waits behind a gap. */
+    boolean isComplete(int totalPages) {
+        return totalPages > 0 && nextPage > totalPages && ahead.isEmpty();
+    }
+
+    int bufferedPages() {
+        return ahead.size();
+    }
+
+    /** Raw combined message; the fold cannot be used afterwards. */
+    String finish() {
+        spool.append(lastFolded.fold.lastTail(), CombinedStatementBuilder.BLOCK4_END);
+        try {
+            return spool.read();
+        } finally {
+            spool.close();
+        }
+    }
+
+    /** First page's opening, summed movements and last page's closing; null if any page was unverified. */
+    StatementBalance balance() {
+        return verified ? new StatementBalance(opening, movement, lastFolded.balance.closing()) : null;
+    }
+
+    List<Long> odsMessageIds() {
+        return odsMessageIds.stream().distinct().toList();
+    }
+
+    void discard() {
+        ahead.clear();
+        spool.close();
+    }
+
+    private void append(FoldedPage page) {
+        spool.append(lastFolded != null ? lastFolded.fold.tail() : null, page.fold.header(), page.fold.body());
+        if (page.odsMessageId != null) {
+            odsMessageIds.add(page.odsMessageId);
+        }
+        if (page.balance == null) {
+            verified = false;
+        } else {
+            if (nextPage == 1) {
+                opening = page.balance.opening();
+            }
+            movement += page.balance.movement();
+        }
+        lastFolded = page;
+        nextPage++;
+    }
+
+    private record FoldedPage(CombinedStatementBuilder.PageFold fold, Long odsMessageId, StatementBalance balance) {
+    }
+
+    private interface Spool {
+        /** Appends the parts in order; null parts are skipped. */
+        void append(String... parts);
+
+        String read();
+
+        void close();
+    }
+
+    private static final class HeapSpool implements Spool {
+        private final StringBuilder sb = new StringBuilder();
+
+        public void append(String... parts) {
+            for (String part : parts) {
+                if (part != null) {
+                    sb.append(part);
+                }
+            }
+        }
+
+        public String read() {
+            return sb.toString();
+        }
+
+        public void close() {
+            sb.setLength(0);
+            sb.trimToSize();
+        }
+    }
+
+    /**
+     * Keeps the folded text out of the heap until completion; the file is deleted on close.
+     * The file is opened in append mode for each page and closed again, so a large backlog
+     * of open groups holds no file descriptors.
+     */
+    private static final class FileSpool implements Spool {
+        private final Path file;
+
+        FileSpool(Path directory) {
+            try {
+                Files.createDirectories(directory);
+                this.file = Files.createTempFile(directory, "mt-fold-", ".spool");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create aggregation spool in " + directory, e);
+            }
+        }
+
+        public void append(String... parts) {
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND)) {
+                for (String part : parts) {
+                    if (part != null) {
+                        writer.write(part);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot write aggregation spool " + file, e);
+            }
+        }
+
+        public String read() {
+            try {
+                return Files.readString(file, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read aggregation spool " + file, e);
+            }
+        }
+
+        public void close() {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot delete aggregation spool " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.StatementBalance;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental folding of DATABASE-mode aggregations (mt.aggregation.fold.mode).
+ *
+ * OFF keeps every page and merges them all when the last one arrives. HEAP and FILE
+ * fold each page into a {@link StatementFold} as it is stored, spooled on-heap or in a
+ * temp file under mt.aggregation.fold.spool-dir, so completion only closes the message.
+ *
+ * A fold is started only with a group's first page and dropped if a page's transaction
+ * rolls back; a group without a complete fold (rolled back, created before a restart,
+ * or by another node) completes the old way, from its stored pages.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "DATABASE", matchIfMissing = true)
+public class StatementFolds {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementFolds.class);
+
+    public enum Mode {
+        OFF,
+        HEAP,
+        FILE
+    }
+
+    private final Mode mode;
+    private final Path spoolDir;
+    private final Map<Long, StatementFold> folds = new ConcurrentHashMap<>();
+    private final Counter fallbackCounter;
+
+    public StatementFolds(MeterRegistry meterRegistry,
+                          @Value("${mt.aggregation.fold.mode:OFF}") Mode mode,
+                          @Value("${mt.aggregation.fold.spool-dir:${java.io.tmpdir}/mt-fold}") String spoolDir) {
+        this.mode = mode;
+        this.spoolDir = Path.of(spoolDir);
+        this.fallbackCounter = meterRegistry.counter("mt.aggregation.fold.fallback");
+        meterRegistry.gauge("mt.aggregation.fold.groups", folds, Map::size);
+        meterRegistry.gauge("mt.aggregation.fold.buffered", folds,
+                f -> f.values().stream().mapToInt(StatementFold::bufferedPages).sum());
+        if (mode != Mode.OFF) {
+            log.info("Incremental aggregation fold: {}", mode == Mode.FILE ? "spooled to " + this.spoolDir : mode);
+        }
+    }
+
+    /**
+     * Folds a stored page. {@code firstPage} starts the group's fold; pages of a group
+     * with no fold are left to the stored-page merge.
+     */
+    void add(Long aggregationId, boolean firstPage, MtStatement page, Long odsMessageId) {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        StatementFold fold = firstPage
+                ? folds.computeIfAbsent(aggregationId, id -> mode == Mode.FILE
+                        ? StatementFold.inFile(spoolDir) : StatementFold.onHeap())
+                : folds.get(aggregationId);
+        if (fold == null) {
+            return;
+        }
+        synchronized (fold) {
+            fold.add(page.getPageNumber(), page.getTagView(), odsMessageId, page.getBalance());
+        }
+        discardOnRollback(aggregationId);
+    }
+
+    /**
+     * The folded result of a completed aggregation, or empty if it has to be merged from
+     * its stored pages. The fold is released either way.
+     */
+    Optional<Folded> finish(Long aggregationId, int totalPages) {
+        if (mode == Mode.OFF) {
+            return Optional.empty();
+        }
+        StatementFold fold = folds.remove(aggregationId);
+        if (fold == null) {
+            fallbackCounter.increment();
+            return Optional.empty();
+        }
+        synchronized (fold) {
+            if (!fold.isComplete(totalPages)) {
+                fold.discard();
+                fallbackCounter.increment();
+                return Optional.empty();
+            }
+            return Optional.of(new Folded(fold.finish(), fold.balance(), fold.odsMessageIds()));
+        }
+    }
+
+    /** Drops the fold of an aggregation that expired. */
+    public void forget(Long aggregationId) {
+        StatementFold fold = folds.remove(aggregationId);
+        if (fold != null) {
+            synchronized (fold) {
+                fold.discard();
+            }
+        }
+    }
+
+    private void discardOnRollback(Long aggregationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    forget(aggregationId);
+                }
+            }
+        });
+    }
+
+    record Folded(String rawMessage, StatementBalance balance, List<Long> odsMessageIds) {
+    }
+}
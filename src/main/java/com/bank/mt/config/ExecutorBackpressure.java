@@ -0,0 +1,62 @@
+package com.bank.mt.config;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Submission to the bounded pipeline executors with backpressure instead of caller-runs.
+ *
+ * A saturated pool makes the submitting thread wait for room in its queue, so work
+ * never leaks onto the thread of the stage before it. Only a shut-down executor (or an
+ * interrupt while waiting) rejects.
+ */
+public final class ExecutorBackpressure {
+
+    /** Assumed capacity of executors that do not expose one (virtual-thread executors never reject). */
+    private static final int UNBOUNDED_CAPACITY = 256;
+
+    private ExecutorBackpressure() {
+    }
+
+    /** Tasks the executor holds (queued plus running) before it would reject. */
+    public static int capacityOf(Executor executor) {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            // Unbounded pools report Integer.MAX_VALUE for both
+            return (int) Math.min(Integer.MAX_VALUE,
+                    (long) pool.getThreadPoolExecutor().getQueue().remainingCapacity() + pool.getMaxPoolSize());
+        }
+        return UNBOUNDED_CAPACITY;
+    }
+
+    /**
+     * Runs {@code task} on {@code executor}, waiting for queue room while a bounded pool is full.
+     *
+     * @throws RejectedExecutionException if the executor is shut down, or the caller is
+     *         interrupted while waiting; the task has not been queued
+     */
+    public static void execute(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+            return;
+        } catch (RejectedExecutionException e) {
+            if (!(executor instanceof ThreadPoolTaskExecutor taskExecutor)
+                    || taskExecutor.getThreadPoolExecutor().isShutdown()) {
+                throw e;
+            }
+        }
+        ThreadPoolExecutor pool = ((ThreadPoolTaskExecutor) executor).getThreadPoolExecutor();
+        try {
+            pool.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for room in " + executor, e);
+        }
+        // Shut down while we waited: take the task back unless a worker already has it
+        if (pool.isShutdown() && pool.remove(task)) {
+            throw new RejectedExecutionException(executor + " is shut down");
+        }
+    }
+}
@@ -1,21 +1,77 @@
 package com.bank.mt.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import javax.sql.DataSource;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 
+/**
+ * Executors for the pipeline stages.
+ *
+ * mt.thread-pool.mode=PLATFORM (default) builds the bounded pools below. VIRTUAL runs
+ * each ingestion, aggregation and delivery task on its own virtual thread, so blocking
+ * JDBC and delivery calls no longer pin a scarce pool thread; the database is then
+ * guarded by a {@link PermitDataSource} (mt.thread-pool.virtual.db-permits, default the
+ * connection pool size). On Java 17–20 VIRTUAL falls back to the platform pools.
+ */
 @Configuration
 public class ThreadPoolConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(ThreadPoolConfig.class);
+
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final boolean virtualThreads;
+
+    public ThreadPoolConfig(@Value("${mt.thread-pool.mode:PLATFORM}") ThreadMode mode) {
+        this.virtualThreads = mode == ThreadMode.VIRTUAL && VirtualThreads.isSupported();
+        if (virtualThreads) {
+            log.info("Pipeline executors run on virtual threads");
+        } else if (mode == ThreadMode.VIRTUAL) {
+            log.warn("mt.thread-pool.mode=VIRTUAL needs Java 21+, running on Java {} — using platform pools",
+                    Runtime.version().feature());
+        }
+    }
+
+    /** Bounds concurrent connections when virtual threads can outnumber the pool. */
+    @Bean
+    static BeanPostProcessor dataSourcePermits(
+            @Value("${mt.thread-pool.mode:PLATFORM}") ThreadMode mode,
+            @Value("${mt.thread-pool.virtual.db-permits:0}") int permits,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        boolean enabled = mode == ThreadMode.VIRTUAL && VirtualThreads.isSupported();
+        int limit = permits > 0 ? permits : poolSize;
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof PermitDataSource)) {
+                    log.info("Database access limited to {} concurrent connections", limit);
+                    return new PermitDataSource(dataSource, limit);
+                }
+                return bean;
+            }
+        };
+    }
+
     @Bean("ingestionExecutor")
     public Executor ingestionExecutor(
             @Value("${mt.thread-pool.ingestion.core-size:4}") int coreSize,
             @Value("${mt.thread-pool.ingestion.max-size:8}") int maxSize,
             @Value("${mt.thread-pool.ingestion.queue-capacity:100}") int queueCapacity) {
-        return buildExecutor("ingestion-", coreSize, maxSize, queueCapacity);
+        return virtualThreads
+                ? VirtualThreads.perTaskExecutor("ingestion-")
+                : buildExecutor("ingestion-", coreSize, maxSize, queueCapacity);
     }
 
     @Bean("aggregationExecutor")
@@ -23,7 +79,9 @@ public class ThreadPoolConfig {
             @Value("${mt.thread-pool.aggregation.core-size:2}") int coreSize,
             @Value("${mt.thread-pool.aggregation.max-size:4}") int maxSize,
             @Value("${mt.thread-pool.aggregation.queue-capacity:50}") int queueCapacity) {
-        return buildExecutor("aggregation-", coreSize, maxSize, queueCapacity);
+        return virtualThreads
+                ? VirtualThreads.perTaskExecutor("aggregation-")
+                : buildExecutor("aggregation-", coreSize, maxSize, queueCapacity);
     }
 
     @Bean("deliveryExecutor")
@@ -31,7 +89,21 @@ public class ThreadPoolConfig {
             @Value("${mt.thread-pool.delivery.core-size:4}") int coreSize,
             @Value("${mt.thread-pool.delivery.max-size:8}") int maxSize,
             @Value("${mt.thread-pool.delivery.queue-capacity:200}") int queueCapacity) {
-        return buildExecutor("delivery-", coreSize, maxSize, queueCapacity);
+        return virtualThreads
+                ? VirtualThreads.perTaskExecutor("delivery-")
+                : buildExecutor("delivery-", coreSize, maxSize, queueCapacity);
+    }
+
+    /** Work-stealing pool for MtParser.parseAll batches; parallelism 0 = one worker per CPU. */
+    @Bean(name = "parsingPool", destroyMethod = "shutdown")
+    public ForkJoinPool parsingPool(
+            @Value("${mt.thread-pool.parsing.parallelism:0}") int parallelism) {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(workers, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("parsing-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
     }
 
     private ThreadPoolTaskExecutor buildExecutor(String prefix, int coreSize, int maxSize, int queueCapacity) {
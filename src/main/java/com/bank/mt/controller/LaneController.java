@@ -0,0 +1,34 @@
+package com.bank.mt.controller;
+
+import com.bank.mt.ingestion.AccountLaneDispatcher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inspection and manual rebalancing of the per-account ingestion lanes.
+ */
+@RestController
+@RequestMapping("/test/lanes")
+@ConditionalOnExpression("${mt.ingestion.lanes.enabled:false} or ${mt.ingestion.file.enabled:false}")
+public class LaneController {
+
+    private final AccountLaneDispatcher dispatcher;
+
+    public LaneController(AccountLaneDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @GetMapping
+    public List<AccountLaneDispatcher.LaneStatus> getLanes() {
+        return dispatcher.lanes();
+    }
+
+    /** Moves hot accounts off overloaded lanes now instead of at the next interval. */
+    @PostMapping("/rebalance")
+    public Map<String, Integer> rebalance() {
+        return Map.of("moved", dispatcher.rebalance());
+    }
+}
@@ -1,16 +1,28 @@
 package com.bank.mt.controller;
 
+import com.bank.mt.aggregation.AggregationEngine;
+import com.bank.mt.domain.InFlightAggregation;
 import com.bank.mt.domain.MtAggregation;
 import com.bank.mt.domain.MtMessageOds;
 import com.bank.mt.domain.OdsStatus;
-import com.bank.mt.ingestion.MqIngestionStrategy;
+import com.bank.mt.ingestion.BulkIngestionService;
+import com.bank.mt.ingestion.AsyncIngestionService;
 import com.bank.mt.repository.MtAggregationRepository;
 import com.bank.mt.repository.MtMessageOdsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,14 +33,26 @@ public class OdsController {
 
     private final MtMessageOdsRepository odsRepository;
     private final MtAggregationRepository aggregationRepository;
-    private final MqIngestionStrategy mqIngestion;
+    private final AsyncIngestionService asyncIngestion;
+    private final AggregationEngine aggregationEngine;
+    private final BulkIngestionService bulkIngestion;
+    private final ObjectMapper objectMapper;
+    private final long retryAfterSeconds;
 
     public OdsController(MtMessageOdsRepository odsRepository,
                          MtAggregationRepository aggregationRepository,
-                         MqIngestionStrategy mqIngestion) {
+                         AsyncIngestionService asyncIngestion,
+                         AggregationEngine aggregationEngine,
+                         BulkIngestionService bulkIngestion,
+                         ObjectMapper objectMapper,
+                         @Value("${mt.ingestion.async.retry-after-seconds:1}") long retryAfterSeconds) {
         this.odsRepository = odsRepository;
         this.aggregationRepository = aggregationRepository;
-        this.mqIngestion = mqIngestion;
+        this.asyncIngestion = asyncIngestion;
+        this.aggregationEngine = aggregationEngine;
+        this.bulkIngestion = bulkIngestion;
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
     }
 
     @GetMapping("/ods-messages")
@@ -37,15 +61,62 @@ public class OdsController {
     }
 
     /**
-     * Simulates receiving a message from MQ inbound queue.
-     * In production, the @JmsListener in MqIngestionStrategy handles this automatically.
+     * Accepts a message: saves it to ODS and returns its id at once, processing it in the
+     * background. 429 with Retry-After when the processing queue is full.
      */
     @PostMapping("/ods-messages")
-    public ResponseEntity<Map<String, String>> submitOdsMessage(@RequestBody Map<String, String> body) {
+    public ResponseEntity<Map<String, Object>> submitOdsMessage(@RequestBody Map<String, String> body) {
         String rawMessage = body.get("rawMessage");
-        mqIngestion.onMessage(rawMessage);
-        return ResponseEntity.status(HttpStatus.ACCEPTED)
-                .body(Map.of("status", "processed", "queue", "MT.INBOUND"));
+        return asyncIngestion.accept(rawMessage)
+                .map(ods -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(Map.<String, Object>of("status", "accepted", "odsId", ods.getId(),
+                                "statusUrl", "/test/ods-messages/" + ods.getId())))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                        .body(Map.of("status", "rejected", "reason", "Processing queue full")));
+    }
+
+    /** Processing status of one accepted message. */
+    @GetMapping("/ods-messages/{id}")
+    public ResponseEntity<Map<String, Object>> getOdsMessageStatus(@PathVariable Long id) {
+        return odsRepository.findById(id)
+                .map(ods -> {
+                    Map<String, Object> status = new LinkedHashMap<>();
+                    status.put("odsId", ods.getId());
+                    status.put("status", ods.getStatus());
+                    status.put("errorReason", ods.getErrorReason());
+                    status.put("retryCount", ods.getRetryCount());
+                    status.put("updatedAt", ods.getUpdatedAt());
+                    return ResponseEntity.ok(status);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Bulk ingestion: NDJSON ({"rawMessage": "..."} per line) or length-prefixed FIN
+     * (application/octet-stream) in one body. Streams one NDJSON result line
+     * ({"seq", "odsId", "status", "error"}) per message as each finishes.
+     */
+    @PostMapping(value = "/ods-messages/bulk",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public void submitOdsMessages(@RequestHeader("Content-Type") MediaType contentType,
+                                  InputStream body,
+                                  HttpServletResponse response) throws IOException {
+        BulkIngestionService.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+                ? BulkIngestionService.Format.NDJSON
+                : BulkIngestionService.Format.LENGTH_PREFIXED;
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        bulkIngestion.ingest(body, format, result -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(result));
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     @GetMapping("/ods-messages/stats")
@@ -63,4 +134,10 @@ public class OdsController {
     public List<MtAggregation> getAllAggregations() {
         return aggregationRepository.findAll(Sort.by(Sort.Direction.DESC, "id"));
     }
+
+    /** In-flight aggregations with the page ranges still missing, from the page bitsets. */
+    @GetMapping("/aggregations/in-flight")
+    public List<InFlightAggregation> getInFlightAggregations() {
+        return aggregationEngine.inFlight();
+    }
 }
@@ -2,6 +2,7 @@ package com.bank.mt.delivery;
 
 import com.bank.mt.domain.DeliveryInstruction;
 import com.bank.mt.domain.MtStatement;
+import com.bank.mt.swift.MtMessageIndex;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
@@ -9,9 +10,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Orchestrates delivery to downstream destinations and SWIFT relay.
  * For SWIFT relay, replaces the receiver BIC in Block 2 of the raw message
@@ -23,10 +21,6 @@ public class DeliveryService {
     private static final Logger log = LoggerFactory.getLogger(DeliveryService.class);
     private static final String SWIFT_RELAY_DESTINATION = "SWIFT.ALLIANCE.OUTBOUND";
 
-    // Block 2 input: {2:I<type:3><receiverBic:8><branch:4><priority:1>}
-    private static final Pattern BLOCK2_BIC_PATTERN =
-            Pattern.compile("(\\{2:I\\d{3})[A-Z0-9]{8}");
-
     private final DeliveryAdapter adapter;
     private final Counter successCounter;
     private final Counter failureCounter;
@@ -72,7 +66,7 @@ public class DeliveryService {
         relay.setSenderBic(original.getSenderBic());
         relay.setReceiverBic(swiftReceiverBic);
         relay.setTransactionReference(original.getTransactionReference());
-        relay.setRawMessage(replaceReceiverBic(original.getRawMessage(), swiftReceiverBic));
+        relay.setRawMessage(replaceReceiverBic(original, swiftReceiverBic));
 
         log.info("SWIFT relay: replaced receiver BIC {} → {} for ref={}",
                 original.getReceiverBic(), swiftReceiverBic, original.getTransactionReference());
@@ -82,16 +76,39 @@ public class DeliveryService {
     /**
      * Replaces the 8-char receiver BIC in Block 2 of the raw SWIFT message.
      * Block 2 format: {2:I<type:3><receiverBic:8><branch+priority>}
+     *
+     * The BIC position comes from the statement's tag view, so the message is
+     * not re-scanned; the result is a single copy with the 8 chars swapped.
      */
-    private String replaceReceiverBic(String rawMessage, String newReceiverBic) {
-        Matcher m = BLOCK2_BIC_PATTERN.matcher(rawMessage);
-        if (m.find()) {
-            return m.replaceFirst("$1" + newReceiverBic);
+    private String replaceReceiverBic(MtStatement statement, String newReceiverBic) {
+        String rawMessage = statement.getRawMessage();
+        MtMessageIndex index = statement.getTagView().index();
+        int bicStart = index.blockStart(2) + 4;
+        if (index.hasBlock(2) && isInputBlock2Bic(rawMessage, index.blockStart(2), index.blockEnd(2))) {
+            return new StringBuilder(rawMessage.length() - 8 + newReceiverBic.length())
+                    .append(rawMessage, 0, bicStart)
+                    .append(newReceiverBic)
+                    .append(rawMessage, bicStart + 8, rawMessage.length())
+                    .toString();
         }
         log.warn("Could not find Block 2 receiver BIC to replace in raw message");
         return rawMessage;
     }
 
+    private static boolean isInputBlock2Bic(String raw, int start, int end) {
+        if (end - start < 12 || raw.charAt(start) != 'I') {
+            return false;
+        }
+        for (int p = start + 1; p < start + 12; p++) {
+            char c = raw.charAt(p);
+            boolean digit = c >= '0' && c <= '9';
+            if (p < start + 4 ? !digit : !(digit || (c >= 'A' && c <= 'Z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean deliverWithRetry(String destination, MtStatement statement) {
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
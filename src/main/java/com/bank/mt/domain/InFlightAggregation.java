@@ -0,0 +1,17 @@
+package com.bank.mt.domain;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of an aggregation still waiting for pages, with the page ranges not yet
+ * received (e.g. "2-4,7"; a trailing "n+" while the total page count is unknown).
+ */
+public record InFlightAggregation(String statementNumber,
+                                  String accountNumber,
+                                  String messageType,
+                                  String transactionReference,
+                                  int totalPages,
+                                  int receivedPages,
+                                  String missingPages,
+                                  LocalDateTime createdAt) {
+}
@@ -1,5 +1,6 @@
 package com.bank.mt.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -10,7 +11,8 @@ import java.util.List;
 public class MtAggregation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mt_aggregation_seq")
+    @SequenceGenerator(name = "mt_aggregation_seq", sequenceName = "mt_aggregation_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "statement_number")
@@ -35,6 +37,11 @@ public class MtAggregation {
     @Column(name = "status", length = 20)
     private AggregationStatus status;
 
+    // PagePresence bitset; null on rows written before it existed
+    @JsonIgnore
+    @Column(name = "page_bitmap")
+    private byte[] pageBitmap;
+
     @Version
     @Column(name = "version")
     private Long version;
@@ -63,6 +70,9 @@ public class MtAggregation {
         updatedAt = LocalDateTime.now();
     }
 
+    public byte[] getPageBitmap() { return pageBitmap; }
+    public void setPageBitmap(byte[] pageBitmap) { this.pageBitmap = pageBitmap; }
+
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 public class MtAggregationPage {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mt_aggregation_page_seq")
+    @SequenceGenerator(name = "mt_aggregation_page_seq", sequenceName = "mt_aggregation_page_seq", allocationSize = 50)
     private Long id;
 
     @JsonIgnore
@@ -30,6 +31,16 @@ public class MtAggregationPage {
     @Column(name = "ods_message_id")
     private Long odsMessageId;
 
+    // Per-page running totals from balance verification; null if the page was not verified
+    @Column(name = "opening_balance")
+    private Long openingBalance;
+
+    @Column(name = "net_movement")
+    private Long netMovement;
+
+    @Column(name = "closing_balance")
+    private Long closingBalance;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
@@ -56,6 +67,15 @@ public class MtAggregationPage {
     public Long getOdsMessageId() { return odsMessageId; }
     public void setOdsMessageId(Long odsMessageId) { this.odsMessageId = odsMessageId; }
 
+    public Long getOpeningBalance() { return openingBalance; }
+    public void setOpeningBalance(Long openingBalance) { this.openingBalance = openingBalance; }
+
+    public Long getNetMovement() { return netMovement; }
+    public void setNetMovement(Long netMovement) { this.netMovement = netMovement; }
+
+    public Long getClosingBalance() { return closingBalance; }
+    public void setClosingBalance(Long closingBalance) { this.closingBalance = closingBalance; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
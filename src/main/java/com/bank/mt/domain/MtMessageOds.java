@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class MtMessageOds {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mt_message_ods_seq")
+    @SequenceGenerator(name = "mt_message_ods_seq", sequenceName = "mt_message_ods_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "raw_message", columnDefinition = "TEXT")
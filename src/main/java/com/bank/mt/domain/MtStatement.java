@@ -1,5 +1,8 @@
 package com.bank.mt.domain;
 
+import com.bank.mt.swift.MtTagView;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Parsed representation of an MT message extracted from raw SWIFT format.
  */
@@ -15,6 +18,9 @@ public class MtStatement {
     private String receiverBicBranch;
     private String transactionReference;
     private String rawMessage;
+    private String checksum;
+    private StatementBalance balance;
+    private volatile MtTagView tagView;
 
     public String getMessageType() { return messageType; }
     public void setMessageType(String messageType) { this.messageType = messageType; }
@@ -44,7 +50,58 @@ public class MtStatement {
     public void setTransactionReference(String transactionReference) { this.transactionReference = transactionReference; }
 
     public String getRawMessage() { return rawMessage; }
-    public void setRawMessage(String rawMessage) { this.rawMessage = rawMessage; }
+    public void setRawMessage(String rawMessage) {
+        this.rawMessage = rawMessage;
+        this.checksum = null;
+        this.balance = null;
+        this.tagView = null;
+    }
+
+    /** SHA-256 of the raw payload if already computed upstream (e.g. from broker bytes), else null. */
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    /** Balances computed by the validation stage, or null if not (yet) verified. */
+    public StatementBalance getBalance() { return balance; }
+    public void setBalance(StatementBalance balance) { this.balance = balance; }
+
+    /**
+     * Tag view over the raw message. Reuses the index built by the parser when
+     * available, otherwise tokenizes the raw message on first access.
+     */
+    @JsonIgnore
+    public MtTagView getTagView() {
+        MtTagView view = tagView;
+        if (view == null && rawMessage != null) {
+            view = MtTagView.of(rawMessage);
+            tagView = view;
+        }
+        return view;
+    }
+
+    public void setTagView(MtTagView tagView) { this.tagView = tagView; }
+
+    /**
+     * Shallow copy. Every field is an immutable value or the flyweight tag view,
+     * so copies can be handed to independent pipeline runs.
+     */
+    public MtStatement copy() {
+        MtStatement copy = new MtStatement();
+        copy.messageType = messageType;
+        copy.accountNumber = accountNumber;
+        copy.statementNumber = statementNumber;
+        copy.pageNumber = pageNumber;
+        copy.totalPages = totalPages;
+        copy.senderBic = senderBic;
+        copy.receiverBic = receiverBic;
+        copy.receiverBicBranch = receiverBicBranch;
+        copy.transactionReference = transactionReference;
+        copy.rawMessage = rawMessage;
+        copy.checksum = checksum;
+        copy.balance = balance;
+        copy.tagView = tagView;
+        return copy;
+    }
 
     public boolean isMultiPage() {
         return totalPages > 1;
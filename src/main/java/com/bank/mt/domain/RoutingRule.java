@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class RoutingRule {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "routing_rule_seq")
+    @SequenceGenerator(name = "routing_rule_seq", sequenceName = "routing_rule_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_number")
@@ -0,0 +1,50 @@
+package com.bank.mt.domain;
+
+/**
+ * Opening balance, net :61: movement and closing balance of a statement or page,
+ * as signed fixed-point longs in thousandths of the currency unit ({@link #SCALE}).
+ */
+public record StatementBalance(long opening, long movement, long closing) {
+
+    /** Fraction digits carried by every amount; covers all ISO 4217 exponents (0–3). */
+    public static final int SCALE = 3;
+
+    private static final long UNIT = 1000;
+
+    public boolean reconciles() {
+        return opening + movement == closing;
+    }
+
+    /** Amount by which the closing balance differs from opening + movement. */
+    public long discrepancy() {
+        return closing - opening - movement;
+    }
+
+    @Override
+    public String toString() {
+        return "opening=" + format(opening)
+                + " movement=" + format(movement)
+                + " closing=" + format(closing);
+    }
+
+    /** SWIFT-style rendering for logs and error reasons, e.g. -1250500 → "-1250,5". */
+    public static String format(long value) {
+        long abs = Math.abs(value);
+        StringBuilder sb = new StringBuilder(20);
+        if (value < 0) {
+            sb.append('-');
+        }
+        sb.append(abs / UNIT).append(',');
+        long fraction = abs % UNIT;
+        int digits = SCALE;
+        while (digits > 0 && fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        if (digits > 0) {
+            String f = Long.toString(fraction);
+            sb.append("0".repeat(digits - f.length())).append(f);
+        }
+        return sb.toString();
+    }
+}
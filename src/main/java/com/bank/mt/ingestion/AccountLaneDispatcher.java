@@ -0,0 +1,362 @@
+package com.bank.mt.ingestion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs messages on N single-threaded lanes chosen by account number, so messages of one
+ * account — e.g. a run of MT942 intraday updates — are processed in arrival order while
+ * different accounts run in parallel. Bulk file ingestion always dispatches through the
+ * lanes; MQ and accepted API messages do with mt.ingestion.lanes.enabled.
+ *
+ * The account comes from a cheap pre-scan of the :25: line; nothing is parsed. By default
+ * an account's lane is its hash modulo the lane count. Every
+ * mt.ingestion.lanes.rebalance-interval-ms the recent load per lane is compared, and while
+ * the busiest lane carries more than mt.ingestion.lanes.rebalance-skew times the mean, one
+ * of its accounts is moved to the least busy lane. A move only takes effect once the
+ * account has nothing queued or running on its old lane, so order is never broken.
+ * Idle accounts fall back to their hash lane.
+ *
+ * Lane queues are bounded (mt.ingestion.lanes.queue-capacity): {@link #dispatch} blocks
+ * the dispatching thread on a full lane, {@link #tryDispatch} refuses instead. Ordering assumes the task finishes the message's work on the lane,
+ * i.e. pipeline mode SYNC.
+ *
+ * Metrics: mt.ingestion.lanes.queue and mt.ingestion.lanes.messages (tagged lane),
+ * mt.ingestion.lanes.skew (busiest lane / mean over the last interval) and
+ * mt.ingestion.lanes.moves.
+ */
+@Component
+@ConditionalOnExpression("${mt.ingestion.lanes.enabled:false} or ${mt.ingestion.file.enabled:false}")
+public class AccountLaneDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountLaneDispatcher.class);
+
+    private static final String ACCOUNT_TAG = ":25:";
+    private static final byte[] ACCOUNT_TAG_BYTES = {'\n', ':', '2', '5', ':'};
+
+    private final ThreadPoolExecutor[] lanes;
+    private final Counter[] laneCounters;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+    private final double rebalanceSkew;
+    private final Counter moveCounter;
+    private volatile double skew = 1.0;
+
+    /** Where an account's messages go; mutated only inside routes.compute for that account. */
+    private static final class Route {
+        volatile int lane;
+        volatile int movingTo = -1;
+        volatile int inFlight;
+        volatile long recent;
+
+        Route(int lane) {
+            this.lane = lane;
+        }
+    }
+
+    /** One lane's queue depth and its busiest accounts over the current interval. */
+    public record LaneStatus(int lane, int queued, long recentMessages, List<String> hotAccounts) {}
+
+    public AccountLaneDispatcher(MeterRegistry meterRegistry,
+                                 @Value("${mt.ingestion.lanes.count:0}") int laneCount,
+                                 @Value("${mt.ingestion.lanes.queue-capacity:256}") int queueCapacity,
+                                 @Value("${mt.ingestion.lanes.rebalance-skew:1.5}") double rebalanceSkew) {
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ThreadPoolExecutor[count];
+        this.laneCounters = new Counter[count];
+        for (int i = 0; i < count; i++) {
+            String name = "account-lane-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    r -> new Thread(r, name),
+                    (r, executor) -> {
+                        // Backpressure: block the dispatcher until the lane has room
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException(name + " is shut down");
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted waiting for " + name, e);
+                        }
+                    });
+            String lane = String.valueOf(i);
+            Gauge.builder("mt.ingestion.lanes.queue", lanes[i], e -> e.getQueue().size())
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            laneCounters[i] = Counter.builder("mt.ingestion.lanes.messages").tag("lane", lane).register(meterRegistry);
+            // tryDispatch offers straight to the queue, so the lane thread must already be polling it
+            lanes[i].prestartAllCoreThreads();
+        }
+        this.rebalanceSkew = Math.max(1.0, rebalanceSkew);
+        this.moveCounter = meterRegistry.counter("mt.ingestion.lanes.moves");
+        Gauge.builder("mt.ingestion.lanes.skew", this, d -> d.skew).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    /**
+     * Runs {@code task} on the lane of {@code account}, after that account's earlier tasks.
+     *
+     * @throws RejectedExecutionException if the lanes are shut down or the caller is
+     *         interrupted while waiting for room; the task is not queued
+     */
+    public void dispatch(String account, Runnable task) {
+        int lane = enter(account);
+        try {
+            lanes[lane].execute(wrap(account, task));
+        } catch (RejectedExecutionException e) {
+            exit(account);
+            throw e;
+        }
+        laneCounters[lane].increment();
+    }
+
+    /**
+     * Like {@link #dispatch} but never blocks: returns false, with nothing queued, if the
+     * account's lane is full or shut down.
+     */
+    public boolean tryDispatch(String account, Runnable task) {
+        int lane = enter(account);
+        if (lanes[lane].isShutdown() || !lanes[lane].getQueue().offer(wrap(account, task))) {
+            exit(account);
+            return false;
+        }
+        laneCounters[lane].increment();
+        return true;
+    }
+
+    /** Counts a task in for the account and returns its lane, applying a pending move first. */
+    private int enter(String account) {
+        int[] lane = new int[1];
+        routes.compute(account, (key, route) -> {
+            if (route == null) {
+                route = new Route(hashLane(key));
+            }
+            if (route.movingTo >= 0 && route.inFlight == 0) {
+                route.lane = route.movingTo;
+                route.movingTo = -1;
+            }
+            route.inFlight++;
+            route.recent++;
+            lane[0] = route.lane;
+            return route;
+        });
+        return lane[0];
+    }
+
+    private void exit(String account) {
+        routes.computeIfPresent(account, (key, route) -> {
+            route.inFlight--;
+            return route;
+        });
+    }
+
+    private Runnable wrap(String account, Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Lane task failed for account {}", account, e);
+            } finally {
+                exit(account);
+            }
+        };
+    }
+
+    /**
+     * Moves accounts off lanes carrying more than rebalance-skew times the mean load of
+     * the last interval, then starts a new interval. Returns the number of accounts moved.
+     */
+    @Scheduled(fixedDelayString = "${mt.ingestion.lanes.rebalance-interval-ms:10000}")
+    public int rebalance() {
+        long[] load = new long[lanes.length];
+        routes.forEach((account, route) -> load[destination(route)] += route.recent);
+        long total = 0;
+        for (long l : load) {
+            total += l;
+        }
+        skew = total == 0 ? 1.0 : max(load) * lanes.length / (double) total;
+
+        int moves = 0;
+        for (int attempt = 0; attempt < lanes.length && total > 0; attempt++) {
+            int hot = argMax(load);
+            int cool = argMin(load);
+            if (load[hot] * lanes.length < rebalanceSkew * total) {
+                break;
+            }
+            // Move the account that best evens out the two lanes, on a tie the smaller one;
+            // the only account on a lane stays
+            long gap = load[hot] - load[cool];
+            String best = null;
+            long bestLoad = 0;
+            long bestImbalance = gap;
+            long accountsOnHot = 0;
+            for (Map.Entry<String, Route> entry : routes.entrySet()) {
+                Route route = entry.getValue();
+                long recent = route.recent;
+                if (destination(route) != hot || recent == 0) {
+                    continue;
+                }
+                accountsOnHot++;
+                long imbalance = Math.abs(gap - 2 * recent);
+                if (recent < gap && (imbalance < bestImbalance || imbalance == bestImbalance && recent < bestLoad)) {
+                    best = entry.getKey();
+                    bestLoad = recent;
+                    bestImbalance = imbalance;
+                }
+            }
+            if (best == null || accountsOnHot < 2) {
+                break;
+            }
+            routes.computeIfPresent(best, (key, route) -> {
+                if (route.inFlight == 0) {
+                    route.lane = cool;
+                    route.movingTo = -1;
+                } else {
+                    route.movingTo = cool; // switches once the old lane has drained it
+                }
+                return route;
+            });
+            load[hot] -= bestLoad;
+            load[cool] += bestLoad;
+            moves++;
+            moveCounter.increment();
+            log.info("Moved account {} from lane {} to lane {} ({} recent messages)", best, hot, cool, bestLoad);
+        }
+
+        // New interval: halve recent counts, forget idle accounts (they return to their hash lane)
+        for (String account : List.copyOf(routes.keySet())) {
+            routes.computeIfPresent(account, (key, route) -> {
+                route.recent /= 2;
+                return route.recent == 0 && route.inFlight == 0 ? null : route;
+            });
+        }
+        return moves;
+    }
+
+    /** Per-lane queue depth, recent load and up to five busiest accounts. */
+    public List<LaneStatus> lanes() {
+        List<LaneStatus> status = new ArrayList<>(lanes.length);
+        for (int i = 0; i < lanes.length; i++) {
+            int lane = i;
+            List<Map.Entry<String, Route>> onLane = routes.entrySet().stream()
+                    .filter(e -> destination(e.getValue()) == lane)
+                    .sorted(Comparator.comparingLong((Map.Entry<String, Route> e) -> e.getValue().recent).reversed())
+                    .toList();
+            status.add(new LaneStatus(lane, lanes[lane].getQueue().size(),
+                    onLane.stream().mapToLong(e -> e.getValue().recent).sum(),
+                    onLane.stream().limit(5).map(Map.Entry::getKey).toList()));
+        }
+        return status;
+    }
+
+    int laneCount() {
+        return lanes.length;
+    }
+
+    int hashLane(String account) {
+        return Math.floorMod(account.hashCode(), lanes.length);
+    }
+
+    /** Account number from the :25: line of a raw message, or "" if there is none. */
+    public static String accountOf(CharSequence rawMessage) {
+        String raw = rawMessage.toString();
+        int tag = raw.indexOf(ACCOUNT_TAG);
+        while (tag > 0 && raw.charAt(tag - 1) != '\n') {
+            tag = raw.indexOf(ACCOUNT_TAG, tag + 1);
+        }
+        if (tag < 0) {
+            return "";
+        }
+        int start = tag + ACCOUNT_TAG.length();
+        int end = start;
+        while (end < raw.length() && raw.charAt(end) != '\r' && raw.charAt(end) != '\n') {
+            end++;
+        }
+        return raw.substring(start, end).trim();
+    }
+
+    /** Byte variant of {@link #accountOf(CharSequence)}; does not move the buffer's position. */
+    public static String accountOf(ByteBuffer message) {
+        int limit = message.limit();
+        for (int p = message.position(); p <= limit - ACCOUNT_TAG_BYTES.length; p++) {
+            if (!matchesAt(message, p)) {
+                continue;
+            }
+            int start = p + ACCOUNT_TAG_BYTES.length;
+            int end = start;
+            while (end < limit && message.get(end) != '\r' && message.get(end) != '\n') {
+                end++;
+            }
+            StringBuilder account = new StringBuilder(end - start);
+            for (int q = start; q < end; q++) {
+                account.append((char) (message.get(q) & 0xff));
+            }
+            return account.toString().trim();
+        }
+        return "";
+    }
+
+    private static boolean matchesAt(ByteBuffer buf, int p) {
+        for (int k = 0; k < ACCOUNT_TAG_BYTES.length; k++) {
+            if (buf.get(p + k) != ACCOUNT_TAG_BYTES[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int destination(Route route) {
+        int movingTo = route.movingTo;
+        return movingTo >= 0 ? movingTo : route.lane;
+    }
+
+    private static long max(long[] values) {
+        return values[argMax(values)];
+    }
+
+    private static int argMax(long[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static int argMin(long[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
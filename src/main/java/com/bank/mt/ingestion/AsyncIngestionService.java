@@ -0,0 +1,137 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Accept-and-ack ingestion for the API: the message is saved to ODS and acknowledged
+ * with its id, and the pipeline runs later on mt.ingestion.async.workers threads.
+ *
+ * At most mt.ingestion.async.queue-capacity messages wait for a worker. A message that
+ * finds the queue full is refused before anything is written, so the caller can retry
+ * (the API answers 429). Accepted rows are saved as NEW and claimed (NEW → PROCESSING)
+ * by the worker that runs them, so a row left NEW by a restart is picked up by the ODS
+ * poller (mt.ingestion.polling.enabled) and is never processed twice.
+ *
+ * With account lanes (mt.ingestion.lanes.enabled) messages run on their account's lane
+ * instead of the worker pool, so one account's messages are processed in the order they
+ * were accepted. A lane's queue is smaller than the total, so a message whose lane is full
+ * is refused as well: its NEW row is deleted again and the caller never blocks.
+ *
+ * Metrics: mt.ingestion.async.queue (accepted, not yet started) and
+ * mt.ingestion.async.rejected.
+ */
+@Service
+public class AsyncIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncIngestionService.class);
+
+    private final IngestionService ingestionService;
+    private final MtMessageOdsRepository odsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final AccountLaneDispatcher lanes;
+    private final Semaphore slots;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejectedCounter;
+
+    public AsyncIngestionService(IngestionService ingestionService,
+                                 MtMessageOdsRepository odsRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 Optional<AccountLaneDispatcher> lanes,
+                                 @Value("${mt.ingestion.lanes.enabled:false}") boolean useLanes,
+                                 @Value("${mt.ingestion.async.workers:4}") int workers,
+                                 @Value("${mt.ingestion.async.queue-capacity:1000}") int queueCapacity) {
+        this.ingestionService = ingestionService;
+        this.odsRepository = odsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lanes = useLanes ? lanes.orElse(null) : null;
+        int workerCount = Math.max(1, workers);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                r -> new Thread(r, "async-ingest-" + threadIndex.getAndIncrement()));
+        // Running messages hold a slot too, so the work queue never exceeds queueCapacity
+        this.slots = new Semaphore(Math.max(0, queueCapacity) + workerCount);
+        Gauge.builder("mt.ingestion.async.queue", queued, AtomicInteger::get).register(meterRegistry);
+        this.rejectedCounter = meterRegistry.counter("mt.ingestion.async.rejected");
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Saves the message to ODS and queues it for processing. Empty, with nothing
+     * written (or the row removed again), if the queue or the account's lane is full.
+     */
+    public Optional<MtMessageOds> accept(String rawMessage) {
+        if (!slots.tryAcquire()) {
+            rejectedCounter.increment();
+            return Optional.empty();
+        }
+        MtMessageOds ods;
+        try {
+            ods = ingestionService.save(rawMessage, OdsStatus.NEW);
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+        queued.incrementAndGet();
+        if (lanes == null) {
+            workers.execute(() -> run(ods));
+        } else if (!lanes.tryDispatch(AccountLaneDispatcher.accountOf(rawMessage), () -> run(ods))) {
+            queued.decrementAndGet();
+            slots.release();
+            if (withdraw(ods)) {
+                rejectedCounter.increment();
+                return Optional.empty();
+            }
+            // The ODS poller claimed the row meanwhile and will process it
+        }
+        return Optional.of(ods);
+    }
+
+    /** Deletes a refused message's row unless something already claimed it. */
+    private boolean withdraw(MtMessageOds ods) {
+        Integer deleted = transactionTemplate.execute(tx -> odsRepository.deleteIfStatus(ods.getId(), OdsStatus.NEW));
+        return Integer.valueOf(1).equals(deleted);
+    }
+
+    private void run(MtMessageOds ods) {
+        queued.decrementAndGet();
+        try {
+            Integer claimed = transactionTemplate.execute(tx ->
+                    odsRepository.updateStatusBatch(List.of(ods.getId()), OdsStatus.NEW, OdsStatus.PROCESSING));
+            if (Integer.valueOf(1).equals(claimed)) {
+                ods.setStatus(OdsStatus.PROCESSING);
+                ingestionService.process(ods);
+            }
+        } catch (RuntimeException e) {
+            log.error("Background processing failed odsId={}", ods.getId(), e);
+        } finally {
+            slots.release();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Streams many messages from one request body into the pipeline.
+ *
+ * The body is read incrementally — one NDJSON line ({"rawMessage": "..."}) or one
+ * length-prefixed FIN message (4-byte big-endian length, then the bytes) at a time —
+ * so at most mt.ingestion.bulk.batch-size messages are held at once. Each batch is run
+ * through {@link IngestionService} on mt.ingestion.bulk.workers threads and every
+ * message's result is handed to the caller as soon as it finishes, in completion order.
+ *
+ * A body that cannot be read further (malformed JSON, a bad length prefix) ends the
+ * stream with one REJECTED result after the batch in flight has finished.
+ *
+ * Every message gets exactly one result, so the request thread cannot wait forever:
+ * a message whose processing throws (even an Error) or that the pool refuses at
+ * shutdown is REJECTED, and so is one with no outcome within
+ * mt.ingestion.bulk.result-timeout-ms of its batch starting — that message may still
+ * be processed afterwards.
+ *
+ * Metric: mt.ingestion.bulk.messages (tagged status).
+ */
+@Service
+public class BulkIngestionService {
+
+    public enum Format {
+        NDJSON,
+        LENGTH_PREFIXED
+    }
+
+    /**
+     * Outcome of one message: its position in the body, ODS id and status (see
+     * {@link IngestionService#ingest(String)}), or REJECTED with the error.
+     */
+    public record Result(long seq, Long odsId, String status, String error) {
+
+        static Result of(long seq, MtMessageOds ods) {
+            return new Result(seq, ods.getId(), ods.getStatus().name(), ods.getErrorReason());
+        }
+
+        static Result rejected(long seq, String error) {
+            return new Result(seq, null, "REJECTED", error);
+        }
+    }
+
+    private final IngestionService ingestionService;
+    private final ObjectReader lineReader;
+    private final ExecutorService workers;
+    private final int batchSize;
+    private final int maxMessageBytes;
+    private final long resultTimeoutMillis;
+    private final MeterRegistry meterRegistry;
+
+    public BulkIngestionService(IngestionService ingestionService,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${mt.ingestion.bulk.workers:4}") int workers,
+                                @Value("${mt.ingestion.bulk.batch-size:100}") int batchSize,
+                                @Value("${mt.ingestion.bulk.max-message-bytes:1048576}") int maxMessageBytes,
+                                @Value("${mt.ingestion.bulk.result-timeout-ms:60000}") long resultTimeoutMillis) {
+        this.ingestionService = ingestionService;
+        this.lineReader = objectMapper.readerFor(new TypeReference<Map<String, String>>() {});
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxMessageBytes = Math.max(1, maxMessageBytes);
+        this.resultTimeoutMillis = Math.max(1, resultTimeoutMillis);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workers),
+                r -> new Thread(r, "bulk-ingest-" + threadIndex.getAndIncrement()));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Ingests every message in {@code body}, passing each result to {@code sink} on the
+     * calling thread as it completes. Returns the number of messages read.
+     */
+    public long ingest(InputStream body, Format format, Consumer<Result> sink) throws IOException {
+        MessageSource source = format == Format.NDJSON
+                ? new NdjsonSource(lineReader.readValues(body))
+                : new LengthPrefixedSource(new DataInputStream(body));
+        LinkedBlockingQueue<Result> finished = new LinkedBlockingQueue<>();
+        long seq = 0;
+        boolean more = true;
+        while (more) {
+            List<Supplier<Result>> batch = new ArrayList<>(batchSize);
+            while (more && batch.size() < batchSize) {
+                Supplier<Result> next;
+                try {
+                    next = source.next(seq);
+                } catch (IOException | RuntimeException e) {
+                    next = rejected(seq, "Unreadable body: " + e.getMessage());
+                    more = false;
+                }
+                if (next == null) {
+                    more = false;
+                } else {
+                    batch.add(next);
+                    seq++;
+                }
+            }
+            long batchStart = seq - batch.size();
+            for (int i = 0; i < batch.size(); i++) {
+                submit(batchStart + i, batch.get(i)).thenAccept(finished::add);
+            }
+            for (int inFlight = batch.size(); inFlight > 0; inFlight--) {
+                Result result = take(finished);
+                meterRegistry.counter("mt.ingestion.bulk.messages", "status", result.status()).increment();
+                sink.accept(result);
+            }
+        }
+        return seq;
+    }
+
+    /** Runs one message; the future always completes with a result, never exceptionally. */
+    private CompletableFuture<Result> submit(long seq, Supplier<Result> message) {
+        CompletableFuture<Result> run;
+        try {
+            run = CompletableFuture.supplyAsync(message, workers);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(Result.rejected(seq, "Bulk ingestion is shutting down"));
+        }
+        return run
+                .handle((result, error) -> error == null ? result
+                        : Result.rejected(seq, String.valueOf(error instanceof CompletionException ? error.getCause() : error)))
+                .completeOnTimeout(Result.rejected(seq, "No result within " + resultTimeoutMillis
+                        + " ms; the message may still be processed"), resultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private Supplier<Result> ingestText(long seq, String rawMessage) {
+        return () -> {
+            try {
+                return Result.of(seq, ingestionService.ingest(rawMessage));
+            } catch (RuntimeException e) {
+                return Result.rejected(seq, e.getMessage());
+            }
+        };
+    }
+
+    private Supplier<Result> ingestBytes(long seq, byte[] payload) {
+        return () -> {
+            try {
+                return Result.of(seq, ingestionService.ingest(ByteBuffer.wrap(payload)));
+            } catch (RuntimeException e) {
+                return Result.rejected(seq, e.getMessage());
+            }
+        };
+    }
+
+    private static Supplier<Result> rejected(long seq, String error) {
+        return () -> Result.rejected(seq, error);
+    }
+
+    private static Result take(LinkedBlockingQueue<Result> finished) {
+        try {
+            return finished.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for bulk results", e);
+        }
+    }
+
+    /** Reads the next message of the body; null at the end. */
+    private interface MessageSource {
+        Supplier<Result> next(long seq) throws IOException;
+    }
+
+    private final class NdjsonSource implements MessageSource {
+
+        private final MappingIterator<Map<String, String>> lines;
+
+        NdjsonSource(MappingIterator<Map<String, String>> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public Supplier<Result> next(long seq) throws IOException {
+            if (!lines.hasNextValue()) {
+                return null;
+            }
+            String rawMessage = lines.nextValue().get("rawMessage");
+            return rawMessage == null || rawMessage.isBlank()
+                    ? rejected(seq, "Missing rawMessage")
+                    : ingestText(seq, rawMessage);
+        }
+    }
+
+    private final class LengthPrefixedSource implements MessageSource {
+
+        private final DataInputStream in;
+
+        LengthPrefixedSource(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public Supplier<Result> next(long seq) throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return null; // clean end between messages
+            }
+            int length = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+            if (length <= 0 || length > maxMessageBytes) {
+                throw new IOException("Bad length prefix " + length);
+            }
+            byte[] payload = in.readNBytes(length);
+            if (payload.length < length) {
+                throw new IOException("Truncated message: " + payload.length + " of " + length + " bytes");
+            }
+            return ingestBytes(seq, payload);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.aggregation.AggregationPartitions;
+import com.bank.mt.domain.AggregationResult;
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.swift.AsciiCharSequence;
+import com.bank.mt.parsing.MtParseException;
+import com.bank.mt.parsing.ParseResultCache;
+import com.bank.mt.routing.RoutingService;
+import com.bank.mt.domain.DeliveryInstruction;
+import com.bank.mt.delivery.DeliveryService;
+import com.bank.mt.validation.BalanceValidator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Runs a single inbound message through the pipeline:
+ * ODS audit → Parser → Balance check → Aggregation → Routing → Delivery.
+ *
+ * Shared by every ingestion strategy so MQ, file and API entry points
+ * process messages identically. The ODS row is always written on the caller's thread;
+ * the rest runs inline or on the staged executors (mt.ingestion.pipeline.mode). ODS
+ * inserts and outcomes go through {@link OdsWriteBatcher}, which can group commit them.
+ */
+@Service
+public class IngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
+
+    private final OdsWriteBatcher odsWriteBatcher;
+    private final ParseResultCache parseResultCache;
+    private final BalanceValidator balanceValidator;
+    private final AggregationPartitions aggregationPartitions;
+    private final RoutingService routingService;
+    private final DeliveryService deliveryService;
+    private final Counter processedCounter;
+    private final PipelineMode pipelineMode;
+    private final PipelineStage ingestionStage;
+    private final PipelineStage aggregationStage;
+    private final PipelineStage deliveryStage;
+
+    /**
+     * SYNC runs every stage on the caller's thread. STAGED hands each message from the
+     * ingestion executor to the aggregation partitions to the delivery executor, so a
+     * slow delivery adapter only backs up parsing once the delivery stage is full.
+     */
+    public enum PipelineMode {
+        SYNC,
+        STAGED
+    }
+
+    public IngestionService(OdsWriteBatcher odsWriteBatcher,
+                            ParseResultCache parseResultCache,
+                            BalanceValidator balanceValidator,
+                            AggregationPartitions aggregationPartitions,
+                            RoutingService routingService,
+                            DeliveryService deliveryService,
+                            MeterRegistry meterRegistry,
+                            @Qualifier("ingestionExecutor") Executor ingestionExecutor,
+                            @Qualifier("aggregationExecutor") Executor aggregationExecutor,
+                            @Qualifier("deliveryExecutor") Executor deliveryExecutor,
+                            @Value("${mt.ingestion.pipeline.mode:SYNC}") PipelineMode pipelineMode) {
+        this.odsWriteBatcher = odsWriteBatcher;
+        this.parseResultCache = parseResultCache;
+        this.balanceValidator = balanceValidator;
+        this.aggregationPartitions = aggregationPartitions;
+        this.routingService = routingService;
+        this.deliveryService = deliveryService;
+        this.processedCounter = meterRegistry.counter("mt.ingestion.processed");
+        this.pipelineMode = pipelineMode;
+        boolean staged = pipelineMode == PipelineMode.STAGED;
+        this.ingestionStage = staged ? PipelineStage.of("ingestion", ingestionExecutor, meterRegistry) : null;
+        this.aggregationStage = staged ? PipelineStage.of("aggregation", aggregationExecutor, meterRegistry) : null;
+        this.deliveryStage = staged ? PipelineStage.of("delivery", deliveryExecutor, meterRegistry) : null;
+    }
+
+    /**
+     * Saves the raw message to ODS for audit, then routes it through the pipeline.
+     * Returns the ODS row; in SYNC mode its status is the message's outcome (COMPLETED,
+     * FAILED, or PROCESSING while pages are missing), in STAGED mode it is PROCESSING.
+     */
+    public MtMessageOds ingest(String rawMessage) {
+        // Persist to ODS for audit trail
+        MtMessageOds ods = save(rawMessage, OdsStatus.PROCESSING);
+
+        processMessage(ods, null);
+        return ods;
+    }
+
+    /**
+     * Saves the raw message to ODS in {@code status} without processing it; NEW rows are
+     * left for a claimer that later calls {@link #process}.
+     */
+    public MtMessageOds save(String rawMessage, OdsStatus status) {
+        MtMessageOds ods = new MtMessageOds();
+        ods.setRawMessage(rawMessage);
+        ods.setStatus(status);
+        return odsWriteBatcher.insert(ods);
+    }
+
+    /**
+     * Byte-oriented variant for callers that hold the payload as bytes (broker
+     * buffers, memory-mapped files). Parses header blocks and tags from the bytes,
+     * hashes those same bytes for duplicate detection, and decodes the payload to a
+     * String only once for the ODS audit row — no String → UTF-8 re-encoding.
+     */
+    public MtMessageOds ingest(ByteBuffer payload) {
+        MtStatement statement = null;
+        try {
+            statement = parseResultCache.parse(payload);
+        } catch (MtParseException e) {
+            // Still audited below; processMessage re-parses and records the failure
+            log.debug("Byte parse failed, deferring to String path: {}", e.getMessage());
+        }
+
+        MtMessageOds ods = new MtMessageOds();
+        ods.setRawMessage(statement != null ? statement.getRawMessage() : AsciiCharSequence.decode(payload));
+        ods.setStatus(OdsStatus.PROCESSING);
+        ods = odsWriteBatcher.insert(ods);
+
+        processMessage(ods, statement);
+        return ods;
+    }
+
+    /**
+     * Runs a message that is already in ODS, claimed by the caller (status PROCESSING),
+     * through the pipeline.
+     */
+    public void process(MtMessageOds ods) {
+        processMessage(ods, null);
+    }
+
+    private void processMessage(MtMessageOds ods, MtStatement parsed) {
+        if (pipelineMode == PipelineMode.STAGED) {
+            try {
+                ingestionStage.execute(() -> parseStage(ods, parsed));
+            } catch (RejectedExecutionException e) {
+                fail(ods, e);
+            }
+            return;
+        }
+        try {
+            MtStatement statement = parseAndVerify(ods, parsed);
+            if (statement == null) {
+                return;
+            }
+            // One writer per aggregation group: pages of a statement are serialised on its partition
+            completeStage(ods, statement, aggregationPartitions.aggregate(statement, ods.getId()));
+        } catch (Exception e) {
+            fail(ods, e);
+        }
+    }
+
+    /**
+     * STAGED mode: parsing runs on the ingestion stage, aggregation on the partitions and
+     * routing/delivery on the delivery stage, each handing over through a bounded stage.
+     */
+    private void parseStage(MtMessageOds ods, MtStatement parsed) {
+        MtStatement statement;
+        try {
+            statement = parseAndVerify(ods, parsed);
+        } catch (Exception e) {
+            fail(ods, e);
+            return;
+        }
+        if (statement == null) {
+            return;
+        }
+        aggregationStage.admit(onStart -> aggregationPartitions.submit(statement, ods.getId(), onStart))
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        fail(ods, error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error);
+                        return;
+                    }
+                    try {
+                        deliveryStage.execute(() -> {
+                            try {
+                                completeStage(ods, statement, result);
+                            } catch (Exception e) {
+                                fail(ods, e);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        fail(ods, e);
+                    }
+                });
+    }
+
+    /** Parses and balance-checks the message; null if it was marked FAILED. */
+    private MtStatement parseAndVerify(MtMessageOds ods, MtStatement parsed) {
+        MtStatement statement = parsed != null ? parsed : parseResultCache.parse(ods.getRawMessage());
+
+        if (!balanceValidator.verify(statement)) {
+            markFailed(ods, balanceFailureReason(statement));
+            return null;
+        }
+        return statement;
+    }
+
+    /** Routes and delivers a statement whose aggregation is ready, and records the outcome. */
+    private void completeStage(MtMessageOds ods, MtStatement statement, AggregationResult result) {
+        if (result.isRejected()) {
+            markFailed(ods, "Aggregation rejected (duplicate page)");
+            return;
+        }
+
+        if (result.isReadyForRouting()) {
+            List<Long> relatedOdsIds = Stream.concat(
+                            result.getRelatedOdsMessageIds().stream(),
+                            Stream.of(ods.getId()))
+                    .distinct()
+                    .toList();
+
+            // Combined statements are checked from the per-page totals carried by aggregation
+            MtStatement combined = result.getCombinedStatement();
+            if (combined != statement && !balanceValidator.verify(combined)) {
+                markFailedByIds(relatedOdsIds, balanceFailureReason(combined));
+                ods.setStatus(OdsStatus.FAILED);
+                return;
+            }
+
+            if (routeAndDeliver(combined)) {
+                markCompletedByIds(relatedOdsIds);
+                ods.setStatus(OdsStatus.COMPLETED);
+            } else {
+                markFailedByIds(relatedOdsIds, "Delivery failed after retries");
+                ods.setStatus(OdsStatus.FAILED);
+            }
+        }
+        // else: still waiting for more pages — leave as PROCESSING
+
+        processedCounter.increment();
+    }
+
+    private void fail(MtMessageOds ods, Throwable e) {
+        log.error("Failed to process message odsId={}", ods.getId(), e);
+        markFailed(ods, e.getMessage());
+    }
+
+    private static String balanceFailureReason(MtStatement statement) {
+        StatementBalance balance = statement.getBalance();
+        return balance != null
+                ? "Balance mismatch: " + balance
+                : "Balance verification failed: malformed amount";
+    }
+
+    private boolean routeAndDeliver(MtStatement statement) {
+        DeliveryInstruction instruction = routingService.route(statement);
+        return deliveryService.deliver(instruction);
+    }
+
+    private void markCompletedByIds(List<Long> odsIds) {
+        odsWriteBatcher.complete(odsIds);
+    }
+
+    private void markFailed(MtMessageOds ods, String reason) {
+        ods.setStatus(OdsStatus.FAILED);
+        ods.setErrorReason(reason);
+        ods.setRetryCount(ods.getRetryCount() + 1);
+        odsWriteBatcher.fail(List.of(ods.getId()), reason);
+    }
+
+    private void markFailedByIds(List<Long> odsIds, String reason) {
+        odsWriteBatcher.fail(odsIds, reason);
+    }
+}
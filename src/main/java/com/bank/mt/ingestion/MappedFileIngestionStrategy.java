@@ -0,0 +1,318 @@
+package com.bank.mt.ingestion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk ingestion of end-of-day RJE-style files holding many concatenated MT messages.
+ *
+ * Files dropped into the inbound directory are memory-mapped window by window
+ * (so files larger than the heap are fine) and split on the {1: / -} / $ boundaries
+ * into zero-copy ByteBuffer slices. Each slice is dispatched on its account's lane
+ * ({@link AccountLaneDispatcher}), which runs parse → aggregate → route → deliver via
+ * {@link IngestionService}, so pages of the same statement are never aggregated
+ * concurrently while different accounts run in parallel. Lane queues are bounded: the
+ * reader blocks instead of buffering the whole file.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.ingestion.file.enabled", havingValue = "true")
+public class MappedFileIngestionStrategy implements MtIngestionStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedFileIngestionStrategy.class);
+
+    private static final byte[] BLOCK1_START = {'{', '1', ':'};
+    private static final byte RJE_DELIMITER = '$';
+
+    private final IngestionService ingestionService;
+    private final AccountLaneDispatcher lanes;
+    private final Counter messageCounter;
+    private final Counter byteCounter;
+    private final Timer fileTimer;
+    private final AtomicLong currentFileSize = new AtomicLong();
+    private final AtomicLong currentFileRead = new AtomicLong();
+
+    @Value("${mt.ingestion.file.inbound-dir:./data/inbound}")
+    private String inboundDir;
+
+    @Value("${mt.ingestion.file.map-window-bytes:67108864}")
+    private int mapWindowBytes;
+
+    public MappedFileIngestionStrategy(IngestionService ingestionService,
+                                       AccountLaneDispatcher lanes,
+                                       MeterRegistry meterRegistry) {
+        this.ingestionService = ingestionService;
+        this.lanes = lanes;
+        this.messageCounter = meterRegistry.counter("mt.ingestion.file.messages");
+        this.byteCounter = meterRegistry.counter("mt.ingestion.file.bytes");
+        this.fileTimer = meterRegistry.timer("mt.ingestion.file.duration");
+        meterRegistry.gauge("mt.ingestion.file.progress", this,
+                s -> s.currentFileSize.get() == 0 ? 0.0
+                        : (double) s.currentFileRead.get() / s.currentFileSize.get());
+    }
+
+    @Override
+    public void start() {
+        log.info("Mapped file ingestion active — inbound dir {}, {} account lanes", inboundDir, lanes.lanes().size());
+    }
+
+    /**
+     * Picks up files from the inbound directory. Processed files are moved to
+     * processed/, unreadable ones to error/. A file interrupted by shutdown stays in
+     * the inbound directory and is read again on the next start.
+     */
+    @Scheduled(fixedDelayString = "${mt.ingestion.file.poll-interval-ms:10000}")
+    public void pollInboundDirectory() {
+        Path dir = Paths.get(inboundDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            log.error("Failed to list inbound dir {}", dir, e);
+            return;
+        }
+
+        for (Path file : files) {
+            try {
+                ingest(file);
+                moveTo(file, dir.resolve("processed"));
+            } catch (IOException e) {
+                log.error("Failed to ingest file {}", file, e);
+                moveTo(file, dir.resolve("error"));
+            } catch (InterruptedException | RejectedExecutionException e) {
+                log.warn("Ingestion of file {} stopped before completion; leaving it in {}", file, dir);
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Maps the file and dispatches every message in it, returning once all of
+     * them have been through the pipeline.
+     *
+     * @throws InterruptedException if interrupted while messages are still in flight
+     * @throws RejectedExecutionException if the lanes are shut down mid-file
+     */
+    public FileIngestionReport ingest(Path file) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        FileTracker tracker = new FileTracker();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            currentFileSize.set(size);
+            currentFileRead.set(0);
+            log.info("Ingesting file {} ({} bytes)", file, size);
+
+            long position = 0;
+            int window = mapWindowBytes;
+            int nextProgressDecile = 1;
+            while (position < size) {
+                long length = Math.min(window, size - position);
+                boolean lastWindow = position + length >= size;
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int consumed = dispatchMessages(mapped, lastWindow, tracker);
+                if (consumed == 0 && !lastWindow) {
+                    // A single message larger than the window — widen it and retry
+                    window = (int) Math.min((long) window * 2, Integer.MAX_VALUE);
+                    continue;
+                }
+                position += lastWindow ? length : consumed;
+                window = mapWindowBytes;
+
+                currentFileRead.set(position);
+                while (size > 0 && position * 10 >= size * nextProgressDecile && nextProgressDecile <= 10) {
+                    log.info("File {} progress: {}% ({} messages dispatched)",
+                            file.getFileName(), nextProgressDecile * 10, tracker.dispatched);
+                    nextProgressDecile++;
+                }
+            }
+
+            tracker.awaitCompletion();
+            byteCounter.increment(size);
+
+            long elapsedNanos = System.nanoTime() - startNanos;
+            fileTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            FileIngestionReport report = new FileIngestionReport(
+                    file.toString(), tracker.dispatched, size, elapsedNanos);
+            log.info("File {} complete: {} messages, {} bytes in {} ms ({} msg/s, {} MB/s)",
+                    file.getFileName(), report.messages(), report.bytes(), report.elapsedMillis(),
+                    String.format("%.1f", report.messagesPerSecond()),
+                    String.format("%.2f", report.megabytesPerSecond()));
+            return report;
+        } finally {
+            currentFileSize.set(0);
+            currentFileRead.set(0);
+        }
+    }
+
+    /**
+     * Splits a mapped window into messages and hands each slice to its lane.
+     * Returns the number of bytes fully consumed; an incomplete trailing message
+     * is left for the next window unless this is the end of the file.
+     */
+    private int dispatchMessages(ByteBuffer window, boolean lastWindow, FileTracker tracker) {
+        int limit = window.limit();
+        int consumed = 0;
+
+        while (true) {
+            int start = indexOf(window, BLOCK1_START, consumed, limit);
+            if (start < 0) {
+                // Keep a possible partial "{1" at the window edge for the next window
+                return lastWindow ? limit : Math.max(consumed, limit - BLOCK1_START.length + 1);
+            }
+
+            int end = messageEnd(window, start + BLOCK1_START.length, limit);
+            if (end < 0) {
+                if (!lastWindow) {
+                    return start;
+                }
+                end = limit;
+            }
+
+            int trimmedEnd = end;
+            while (trimmedEnd > start && window.get(trimmedEnd - 1) <= ' ') {
+                trimmedEnd--;
+            }
+            dispatch(window.slice(start, trimmedEnd - start), tracker);
+            consumed = end;
+        }
+    }
+
+    private void dispatch(ByteBuffer message, FileTracker tracker) {
+        tracker.submitted();
+        try {
+            lanes.dispatch(AccountLaneDispatcher.accountOf(message), () -> {
+                try {
+                    ingestionService.ingest(message);
+                    messageCounter.increment();
+                } catch (Exception e) {
+                    log.error("File message ingestion failed", e);
+                } finally {
+                    tracker.completed();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            tracker.completed();
+            throw e;
+        }
+    }
+
+    /**
+     * End of the message starting before {@code from}: just past its "-}" trailer, or at
+     * the next '$' delimiter or "{1:" header if one comes first; -1 if none is in range.
+     */
+    private static int messageEnd(ByteBuffer buf, int from, int limit) {
+        for (int p = from; p < limit; p++) {
+            byte b = buf.get(p);
+            if (b == RJE_DELIMITER) {
+                return p;
+            }
+            if (b == '-' && p + 1 < limit && buf.get(p + 1) == '}') {
+                return p + 2;
+            }
+            if (b == '{' && matchesAt(buf, p, BLOCK1_START, limit)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer buf, byte[] needle, int from, int limit) {
+        for (int p = from; p <= limit - needle.length; p++) {
+            if (buf.get(p) == needle[0] && matchesAt(buf, p, needle, limit)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matchesAt(ByteBuffer buf, int p, byte[] needle, int limit) {
+        if (p + needle.length > limit) {
+            return false;
+        }
+        for (int k = 0; k < needle.length; k++) {
+            if (buf.get(p + k) != needle[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void moveTo(Path file, Path targetDir) {
+        try {
+            Files.createDirectories(targetDir);
+            Files.move(file, targetDir.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to move {} to {}", file, targetDir, e);
+        }
+    }
+
+    /** Counts in-flight messages of one file so ingest() can wait for the last one. */
+    private static final class FileTracker {
+
+        private long dispatched;
+        private long pending;
+
+        synchronized void submitted() {
+            dispatched++;
+            pending++;
+        }
+
+        synchronized void completed() {
+            if (--pending == 0) {
+                notifyAll();
+            }
+        }
+
+        synchronized void awaitCompletion() throws InterruptedException {
+            while (pending > 0) {
+                wait();
+            }
+        }
+    }
+
+    public record FileIngestionReport(String file, long messages, long bytes, long elapsedNanos) {
+
+        public long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        }
+
+        public double messagesPerSecond() {
+            return elapsedNanos == 0 ? 0 : messages * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes * 1_000_000_000.0 / elapsedNanos / (1024 * 1024);
+        }
+    }
+}
@@ -1,24 +1,13 @@
 package com.bank.mt.ingestion;
 
-import com.bank.mt.aggregation.AggregationService;
-import com.bank.mt.domain.AggregationResult;
-import com.bank.mt.domain.MtMessageOds;
-import com.bank.mt.domain.MtStatement;
-import com.bank.mt.domain.OdsStatus;
-import com.bank.mt.parsing.MtParser;
-import com.bank.mt.repository.MtMessageOdsRepository;
-import com.bank.mt.routing.RoutingService;
-import com.bank.mt.domain.DeliveryInstruction;
-import com.bank.mt.delivery.DeliveryService;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-import java.util.stream.Stream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
 
 /**
  * MQ-based ingestion strategy — receives raw MT messages from an inbound queue.
@@ -28,6 +17,9 @@ import java.util.stream.Stream;
  *
  * For POC purposes, the REST controller invokes onMessage() directly to simulate
  * MQ delivery without requiring a running broker.
+ *
+ * Messages are processed on the listener's thread, or with mt.ingestion.lanes.enabled
+ * on their account's lane: in order per account, in parallel across accounts.
  */
 @Component
 @ConditionalOnProperty(name = "mt.ingestion.mode", havingValue = "MQ")
@@ -35,25 +27,15 @@ public class MqIngestionStrategy implements MtIngestionStrategy {
 
     private static final Logger log = LoggerFactory.getLogger(MqIngestionStrategy.class);
 
-    private final MtMessageOdsRepository odsRepository;
-    private final MtParser parser;
-    private final AggregationService aggregationService;
-    private final RoutingService routingService;
-    private final DeliveryService deliveryService;
-    private final Counter processedCounter;
+    private final IngestionService ingestionService;
+    private final AccountLaneDispatcher lanes;
 
-    public MqIngestionStrategy(MtMessageOdsRepository odsRepository,
-                               MtParser parser,
-                               AggregationService aggregationService,
-                               RoutingService routingService,
-                               DeliveryService deliveryService,
-                               MeterRegistry meterRegistry) {
-        this.odsRepository = odsRepository;
-        this.parser = parser;
-        this.aggregationService = aggregationService;
-        this.routingService = routingService;
-        this.deliveryService = deliveryService;
-        this.processedCounter = meterRegistry.counter("mt.ingestion.processed");
+    public MqIngestionStrategy(IngestionService ingestionService,
+                               Optional<AccountLaneDispatcher> lanes,
+                               @Value("${mt.ingestion.lanes.enabled:false}") boolean useLanes) {
+        this.ingestionService = ingestionService;
+        // The dispatcher also exists for file ingestion alone; MQ only uses it when asked to
+        this.lanes = useLanes ? lanes.orElse(null) : null;
     }
 
     @Override
@@ -67,75 +49,25 @@ public class MqIngestionStrategy implements MtIngestionStrategy {
      */
     public void onMessage(String rawMessage) {
         log.info("Received message from MQ inbound queue ({} chars)", rawMessage.length());
-
-        // Persist to ODS for audit trail
-        MtMessageOds ods = new MtMessageOds();
-        ods.setRawMessage(rawMessage);
-        ods.setStatus(OdsStatus.PROCESSING);
-        ods = odsRepository.save(ods);
-
-        processMessage(ods);
-    }
-
-    private void processMessage(MtMessageOds ods) {
-        try {
-            MtStatement statement = parser.parse(ods.getRawMessage());
-
-            AggregationResult result = aggregationService.aggregate(statement, ods.getId());
-
-            if (result.isRejected()) {
-                markFailed(ods, "Aggregation rejected (duplicate page)");
-                return;
-            }
-
-            if (result.isReadyForRouting()) {
-                List<Long> relatedOdsIds = Stream.concat(
-                                result.getRelatedOdsMessageIds().stream(),
-                                Stream.of(ods.getId()))
-                        .distinct()
-                        .toList();
-
-                if (routeAndDeliver(result.getCombinedStatement())) {
-                    markCompletedByIds(relatedOdsIds);
-                } else {
-                    markFailedByIds(relatedOdsIds, "Delivery failed after retries");
-                }
-            }
-            // else: still waiting for more pages — leave as PROCESSING
-
-            processedCounter.increment();
-        } catch (Exception e) {
-            log.error("Failed to process MQ message odsId={}", ods.getId(), e);
-            markFailed(ods, e.getMessage());
+        if (lanes != null) {
+            lanes.dispatch(AccountLaneDispatcher.accountOf(rawMessage), () -> ingestionService.ingest(rawMessage));
+        } else {
+            ingestionService.ingest(rawMessage);
         }
     }
 
-    private boolean routeAndDeliver(MtStatement statement) {
-        DeliveryInstruction instruction = routingService.route(statement);
-        return deliveryService.deliver(instruction);
-    }
-
-    private void markCompleted(MtMessageOds ods) {
-        ods.setStatus(OdsStatus.COMPLETED);
-        odsRepository.save(ods);
-    }
-
-    private void markCompletedByIds(List<Long> odsIds) {
-        for (Long odsId : odsIds) {
-            odsRepository.findById(odsId).ifPresent(this::markCompleted);
-        }
-    }
-
-    private void markFailed(MtMessageOds ods, String reason) {
-        ods.setStatus(OdsStatus.FAILED);
-        ods.setErrorReason(reason);
-        ods.setRetryCount(ods.getRetryCount() + 1);
-        odsRepository.save(ods);
-    }
-
-    private void markFailedByIds(List<Long> odsIds, String reason) {
-        for (Long odsId : odsIds) {
-            odsRepository.findById(odsId).ifPresent(o -> markFailed(o, reason));
+    /**
+     * Byte-oriented variant for listeners that expose the broker payload directly,
+     * avoiding the String decode / UTF-8 re-encode round trip.
+     */
+    public void onMessage(ByteBuffer payload) {
+        log.info("Received message from MQ inbound queue ({} bytes)", payload.remaining());
+        if (lanes != null) {
+            // The broker may reuse its buffer once we return: the lane gets a copy
+            ByteBuffer copy = ByteBuffer.allocate(payload.remaining()).put(payload.duplicate()).flip();
+            lanes.dispatch(AccountLaneDispatcher.accountOf(copy), () -> ingestionService.ingest(copy));
+        } else {
+            ingestionService.ingest(payload);
         }
     }
 }
@@ -0,0 +1,255 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the ODS table for NEW messages written by upstream producers and runs them
+ * through the pipeline via {@link IngestionService}.
+ *
+ * Each worker claims a batch (mt.ingestion.polling.batch-size) by moving it from NEW to
+ * PROCESSING, then processes the batch on its own thread. Two claim modes:
+ * - CAS: read candidate ids without locks, then updateStatusBatch(ids, NEW, PROCESSING).
+ *   If another node won some of the rows the batch update is rolled back and the rows are
+ *   claimed one by one, so a worker only ever processes rows it moved itself.
+ * - SKIP_LOCKED: SELECT ... FOR UPDATE SKIP LOCKED and the status update in one
+ *   transaction; concurrent claimers never see the same row (PostgreSQL, H2 2.x).
+ *
+ * A worker that finds a full batch polls again at once, a partial batch waits
+ * mt.ingestion.polling.poll-interval-ms, and an empty table doubles the wait up to
+ * mt.ingestion.polling.max-backoff-ms.
+ *
+ * A claim is a lease: the claim sets updated_at, and a row still PROCESSING
+ * mt.ingestion.polling.claim-lease-ms later that never reached aggregation is taken to
+ * belong to a node that stopped mid-message. Every mt.ingestion.polling.reclaim-interval-ms
+ * such rows — whoever claimed them: pollers, async API workers or MQ listeners — go back
+ * to NEW with retry_count raised, or to FAILED once they have been reclaimed
+ * mt.ingestion.polling.max-reclaims times. Pages waiting in an open aggregation are left
+ * to aggregation expiry. The lease must comfortably exceed the time one message takes.
+ */
+@Component
+@ConditionalOnProperty(name = "mt.ingestion.polling.enabled", havingValue = "true")
+public class OdsPollingIngestionStrategy implements MtIngestionStrategy {
+
+    private static final Logger log = LoggerFactory.getLogger(OdsPollingIngestionStrategy.class);
+
+    public enum ClaimMode {
+        CAS,
+        SKIP_LOCKED
+    }
+
+    private final IngestionService ingestionService;
+    private final MtMessageOdsRepository odsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledThreadPoolExecutor workers;
+    private final int workerCount;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final long maxBackoffMillis;
+    private final ClaimMode claimMode;
+    private final long claimLeaseMillis;
+    private final long reclaimIntervalMillis;
+    private final int maxReclaims;
+    private final AtomicLong staleClaims = new AtomicLong();
+    private final Object casClaimLock = new Object();
+    private final Counter messageCounter;
+    private final Counter conflictCounter;
+    private final DistributionSummary batchFill;
+    private final Counter reclaimedCounter;
+
+    public OdsPollingIngestionStrategy(IngestionService ingestionService,
+                                       MtMessageOdsRepository odsRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${mt.ingestion.polling.workers:2}") int workers,
+                                       @Value("${mt.ingestion.polling.batch-size:50}") int batchSize,
+                                       @Value("${mt.ingestion.polling.poll-interval-ms:1000}") long pollIntervalMillis,
+                                       @Value("${mt.ingestion.polling.max-backoff-ms:30000}") long maxBackoffMillis,
+                                       @Value("${mt.ingestion.polling.claim-mode:CAS}") ClaimMode claimMode,
+                                       @Value("${mt.ingestion.polling.claim-lease-ms:900000}") long claimLeaseMillis,
+                                       @Value("${mt.ingestion.polling.reclaim-interval-ms:60000}") long reclaimIntervalMillis,
+                                       @Value("${mt.ingestion.polling.max-reclaims:3}") int maxReclaims) {
+        this.ingestionService = ingestionService;
+        this.odsRepository = odsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workerCount = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalMillis = Math.max(1, pollIntervalMillis);
+        this.maxBackoffMillis = Math.max(this.pollIntervalMillis, maxBackoffMillis);
+        this.claimMode = claimMode;
+        this.claimLeaseMillis = Math.max(1, claimLeaseMillis);
+        this.reclaimIntervalMillis = Math.max(1, reclaimIntervalMillis);
+        this.maxReclaims = Math.max(0, maxReclaims);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ScheduledThreadPoolExecutor(workerCount,
+                r -> new Thread(r, "ods-poll-" + threadIndex.getAndIncrement()));
+        this.messageCounter = meterRegistry.counter("mt.ingestion.polling.messages");
+        this.conflictCounter = meterRegistry.counter("mt.ingestion.polling.claim.conflicts");
+        this.batchFill = DistributionSummary.builder("mt.ingestion.polling.batch.fill")
+                .description("Claimed rows / batch size per non-empty poll")
+                .register(meterRegistry);
+        this.reclaimedCounter = meterRegistry.counter("mt.ingestion.polling.reclaimed");
+        meterRegistry.gauge("mt.ingestion.polling.stale", staleClaims, AtomicLong::get);
+    }
+
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        log.info("ODS polling ingestion active — {} workers, batch {}, {} claims",
+                workerCount, batchSize, claimMode);
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(new Worker());
+        }
+        workers.scheduleWithFixedDelay(() -> {
+            try {
+                reclaimStaleClaims();
+            } catch (RuntimeException e) {
+                log.error("Reclaiming stale ODS claims failed", e);
+            }
+        }, reclaimIntervalMillis, reclaimIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns PROCESSING rows whose claim lease ran out to NEW, or fails them once they
+     * have been reclaimed max-reclaims times. Returns the number of stale rows found.
+     */
+    public int reclaimStaleClaims() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(claimLeaseMillis));
+        List<Long> reclaim = new ArrayList<>();
+        List<Long> abandon = new ArrayList<>();
+        for (Object[] row : odsRepository.findStaleClaims(cutoff, PageRequest.of(0, 1000))) {
+            ((Integer) row[1] < maxReclaims ? reclaim : abandon).add((Long) row[0]);
+        }
+        staleClaims.set(reclaim.size() + abandon.size());
+        if (reclaim.isEmpty() && abandon.isEmpty()) {
+            return 0;
+        }
+        int[] affected = transactionTemplate.execute(tx -> new int[] {
+                reclaim.isEmpty() ? 0 : odsRepository.reclaimStale(reclaim, cutoff,
+                        "Claim lease expired; returned to NEW"),
+                abandon.isEmpty() ? 0 : odsRepository.failStale(abandon, cutoff,
+                        "Claim lease expired " + (maxReclaims + 1) + " times; giving up")});
+        reclaimedCounter.increment(affected[0]);
+        log.warn("Stale ODS claims older than {} ms: {} returned to NEW, {} failed",
+                claimLeaseMillis, affected[0], affected[1]);
+        return reclaim.size() + abandon.size();
+    }
+
+    /** Claims up to one batch of NEW messages; the returned rows are PROCESSING and owned by the caller. */
+    List<MtMessageOds> claim() {
+        return claimMode == ClaimMode.SKIP_LOCKED ? claimSkipLocked() : claimCas();
+    }
+
+    private List<MtMessageOds> claimSkipLocked() {
+        List<Long> ids = transactionTemplate.execute(tx -> {
+            List<Long> locked = odsRepository.lockIdsByStatusSkipLocked(OdsStatus.NEW.name(), batchSize);
+            if (!locked.isEmpty()) {
+                odsRepository.updateStatusBatch(locked, OdsStatus.NEW, OdsStatus.PROCESSING);
+            }
+            return locked;
+        });
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        List<MtMessageOds> claimed = new ArrayList<>(odsRepository.findAllById(ids));
+        claimed.sort(Comparator.comparing(MtMessageOds::getId));
+        return claimed;
+    }
+
+    private List<MtMessageOds> claimCas() {
+        // Local workers take turns, so conflicts only come from other nodes
+        synchronized (casClaimLock) {
+            List<MtMessageOds> candidates = odsRepository.findByStatusOrderByIdLimit(OdsStatus.NEW,
+                    PageRequest.of(0, batchSize));
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            List<Long> ids = candidates.stream().map(MtMessageOds::getId).toList();
+            Boolean allClaimed = transactionTemplate.execute(tx -> {
+                if (odsRepository.updateStatusBatch(ids, OdsStatus.NEW, OdsStatus.PROCESSING) == ids.size()) {
+                    return true;
+                }
+                tx.setRollbackOnly(); // which rows were won is unknown; claim them one by one
+                return false;
+            });
+
+            List<MtMessageOds> claimed = new ArrayList<>(candidates.size());
+            for (MtMessageOds ods : candidates) {
+                boolean won = Boolean.TRUE.equals(allClaimed) || Integer.valueOf(1).equals(transactionTemplate.execute(
+                        tx -> odsRepository.updateStatusBatch(List.of(ods.getId()), OdsStatus.NEW, OdsStatus.PROCESSING)));
+                if (won) {
+                    ods.setStatus(OdsStatus.PROCESSING);
+                    claimed.add(ods);
+                }
+            }
+            conflictCounter.increment(candidates.size() - claimed.size());
+            return claimed;
+        }
+    }
+
+    /** One polling loop; reschedules itself with a delay that adapts to how full the last claim was. */
+    private final class Worker implements Runnable {
+
+        private long idleDelay = pollIntervalMillis;
+
+        @Override
+        public void run() {
+            long delay;
+            try {
+                delay = pollOnce();
+            } catch (RuntimeException e) {
+                log.error("ODS poll failed", e);
+                delay = pollIntervalMillis;
+            }
+            if (!workers.isShutdown()) {
+                workers.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private long pollOnce() {
+            List<MtMessageOds> batch = claim();
+            if (batch.isEmpty()) {
+                long delay = idleDelay;
+                idleDelay = Math.min(idleDelay * 2, maxBackoffMillis);
+                return delay;
+            }
+            idleDelay = pollIntervalMillis;
+            batchFill.record((double) batch.size() / batchSize);
+            for (MtMessageOds ods : batch) {
+                ingestionService.process(ods);
+                messageCounter.increment();
+            }
+            return batch.size() == batchSize ? 0 : pollIntervalMillis;
+        }
+    }
+}
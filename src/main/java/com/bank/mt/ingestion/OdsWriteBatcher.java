@@ -0,0 +1,204 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes the pipeline's ODS rows: the audit insert of each new message and the final
+ * status of each processed one (one bulk UPDATE for all related page ids instead of a
+ * read and save per id).
+ *
+ * With mt.persistence.ods-batch.enabled the writes of concurrent messages are group
+ * committed. Callers queue their write and take turns at the flush lock; the holder waits
+ * up to mt.persistence.ods-batch.window-ms for more writes (or until max-size are queued),
+ * then applies everything queued in one transaction — new rows as one JDBC batch (pooled
+ * sequence ids), outcomes as one bulk UPDATE per status and reason. Each caller returns
+ * once its own write is committed. If the shared transaction fails its writes are retried
+ * one per transaction, so only the failing write reports the error.
+ *
+ * Disabled, every write is its own transaction.
+ *
+ * Metric: mt.persistence.ods.batch.size (writes per commit).
+ */
+@Component
+public class OdsWriteBatcher {
+
+    private final MtMessageOdsRepository odsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxSize;
+    private final long windowNanos;
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final DistributionSummary batchSize;
+
+    private sealed interface PendingWrite permits PendingInsert, PendingOutcome {
+        CompletableFuture<MtMessageOds> done();
+    }
+
+    private record PendingInsert(MtMessageOds ods, CompletableFuture<MtMessageOds> done) implements PendingWrite {}
+
+    private record PendingOutcome(List<Long> ids, OdsStatus status, String reason,
+                                  CompletableFuture<MtMessageOds> done) implements PendingWrite {}
+
+    public OdsWriteBatcher(MtMessageOdsRepository odsRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${mt.persistence.ods-batch.enabled:false}") boolean enabled,
+                           @Value("${mt.persistence.ods-batch.max-size:50}") int maxSize,
+                           @Value("${mt.persistence.ods-batch.window-ms:2}") long windowMillis) {
+        this.odsRepository = odsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxSize = Math.max(1, maxSize);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, windowMillis));
+        this.batchSize = DistributionSummary.builder("mt.persistence.ods.batch.size")
+                .description("ODS writes per commit")
+                .register(meterRegistry);
+    }
+
+    /** Inserts {@code ods} and returns the saved row (with its id) once it is committed. */
+    public MtMessageOds insert(MtMessageOds ods) {
+        return submit(new PendingInsert(ods, new CompletableFuture<>()));
+    }
+
+    /** Marks the messages COMPLETED. */
+    public void complete(List<Long> odsIds) {
+        if (!odsIds.isEmpty()) {
+            submit(new PendingOutcome(odsIds, OdsStatus.COMPLETED, null, new CompletableFuture<>()));
+        }
+    }
+
+    /** Marks the messages FAILED with {@code reason}, counting one more attempt each. */
+    public void fail(List<Long> odsIds, String reason) {
+        if (!odsIds.isEmpty()) {
+            submit(new PendingOutcome(odsIds, OdsStatus.FAILED, reason, new CompletableFuture<>()));
+        }
+    }
+
+    private MtMessageOds submit(PendingWrite write) {
+        if (!enabled) {
+            commitAlone(write);
+        } else {
+            queue.add(write);
+            if (queued.incrementAndGet() >= maxSize) {
+                synchronized (queue) {
+                    queue.notifyAll(); // cut the window short: a full batch is waiting
+                }
+            }
+            flushLock.lock();
+            try {
+                while (!write.done().isDone()) {
+                    awaitWindow();
+                    flush();
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+        try {
+            return write.done().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private void awaitWindow() {
+        long deadline = System.nanoTime() + windowNanos;
+        synchronized (queue) {
+            long remaining;
+            while (queued.get() < maxSize && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(queue, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flush() {
+        List<PendingWrite> batch = new ArrayList<>(maxSize);
+        PendingWrite next;
+        while (batch.size() < maxSize && (next = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(next);
+        }
+        if (batch.size() == 1) {
+            commitAlone(batch.get(0));
+        } else if (!batch.isEmpty()) {
+            try {
+                Map<PendingInsert, MtMessageOds> saved = transactionTemplate.execute(tx -> apply(batch));
+                batch.forEach(write -> write.done().complete(saved.get(write)));
+                batchSize.record(batch.size());
+            } catch (RuntimeException e) {
+                batch.forEach(this::commitAlone); // isolate the write that broke the batch
+            }
+        }
+    }
+
+    private void commitAlone(PendingWrite write) {
+        try {
+            if (write instanceof PendingInsert insert) {
+                insert.ods().setId(null); // may hold an id from a rolled-back batch
+            }
+            Map<PendingInsert, MtMessageOds> saved = transactionTemplate.execute(tx -> apply(List.of(write)));
+            write.done().complete(saved.get(write));
+            batchSize.record(1);
+        } catch (RuntimeException e) {
+            write.done().completeExceptionally(e);
+        }
+    }
+
+    /** Applies the writes in the caller's transaction; returns the saved row of each insert. */
+    private Map<PendingInsert, MtMessageOds> apply(List<PendingWrite> writes) {
+        List<PendingInsert> inserts = new ArrayList<>();
+        List<Long> completed = new ArrayList<>();
+        Map<String, List<Long>> failedByReason = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            if (write instanceof PendingInsert insert) {
+                inserts.add(insert);
+            } else if (write instanceof PendingOutcome outcome) {
+                if (outcome.status() == OdsStatus.COMPLETED) {
+                    completed.addAll(outcome.ids());
+                } else {
+                    failedByReason.computeIfAbsent(outcome.reason(), r -> new ArrayList<>()).addAll(outcome.ids());
+                }
+            }
+        }
+
+        Map<PendingInsert, MtMessageOds> saved = new HashMap<>();
+        if (!inserts.isEmpty()) {
+            List<MtMessageOds> rows = odsRepository.saveAll(inserts.stream().map(PendingInsert::ods).toList());
+            for (int i = 0; i < inserts.size(); i++) {
+                saved.put(inserts.get(i), rows.get(i));
+            }
+        }
+        if (!completed.isEmpty()) {
+            odsRepository.completeAll(completed);
+        }
+        failedByReason.forEach((reason, ids) -> odsRepository.failAll(ids, reason));
+        return saved;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.config.ExecutorBackpressure;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * One stage of the STAGED ingestion pipeline: a bounded admission queue in front of
+ * an executor.
+ *
+ * At most {@code capacity} tasks are admitted (queued or running) at a time. A caller
+ * that finds the stage full counts a rejection and blocks until a task finishes, so a
+ * slow stage pushes back on the one before it instead of queueing without bound.
+ * For executor-backed stages the capacity is the executor's queue plus its maximum
+ * threads. Should the executor still be full (it is shared), the caller waits for room
+ * as well; a task is never run on the caller's thread. Once the executor is shut down
+ * {@link #execute} rejects.
+ *
+ * Metrics, tagged {@code stage}: mt.pipeline.stage.queue (admitted, not yet started),
+ * mt.pipeline.stage.wait (admission to start) and mt.pipeline.stage.rejected.
+ */
+final class PipelineStage {
+
+    private final Executor executor;
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    PipelineStage(String name, Executor executor, int capacity, MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(1, capacity));
+        Gauge.builder("mt.pipeline.stage.queue", waiting, AtomicInteger::get)
+                .tag("stage", name)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("mt.pipeline.stage.wait").tag("stage", name).register(meterRegistry);
+        this.rejectedCounter = Counter.builder("mt.pipeline.stage.rejected").tag("stage", name).register(meterRegistry);
+    }
+
+    /** Stage over {@code executor}, sized to what the executor can hold without rejecting. */
+    static PipelineStage of(String name, Executor executor, MeterRegistry meterRegistry) {
+        return new PipelineStage(name, executor, ExecutorBackpressure.capacityOf(executor), meterRegistry);
+    }
+
+    /**
+     * Runs {@code task} on the stage's executor, blocking while the stage is full.
+     *
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    void execute(Runnable task) {
+        long admitted = admit();
+        Runnable tracked = () -> {
+            started(admitted);
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        };
+        try {
+            ExecutorBackpressure.execute(executor, tracked);
+        } catch (RejectedExecutionException e) {
+            waiting.decrementAndGet();
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Admits work that runs elsewhere (e.g. on the aggregation partitions). {@code start}
+     * receives a callback to run when the work is picked up; the permit is held until the
+     * returned future completes.
+     */
+    <T> CompletableFuture<T> admit(Function<Runnable, CompletableFuture<T>> start) {
+        long admitted = admit();
+        CompletableFuture<T> future;
+        try {
+            future = start.apply(() -> started(admitted));
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> permits.release());
+    }
+
+    int available() {
+        return permits.availablePermits();
+    }
+
+    private long admit() {
+        if (!permits.tryAcquire()) {
+            rejectedCounter.increment();
+            permits.acquireUninterruptibly(); // backpressure on the submitting stage
+        }
+        waiting.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    private void started(long admitted) {
+        waiting.decrementAndGet();
+        waitTimer.record(System.nanoTime() - admitted, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,33 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.domain.MtStatement;
+
+/**
+ * Outcome of parsing one message of a batch — either the statement or the
+ * {@link MtParseException} it failed with, tagged with its position in the input.
+ */
+public final class MtParseResult {
+
+    private final int index;
+    private final MtStatement statement;
+    private final MtParseException error;
+
+    private MtParseResult(int index, MtStatement statement, MtParseException error) {
+        this.index = index;
+        this.statement = statement;
+        this.error = error;
+    }
+
+    public static MtParseResult success(int index, MtStatement statement) {
+        return new MtParseResult(index, statement, null);
+    }
+
+    public static MtParseResult failure(int index, MtParseException error) {
+        return new MtParseResult(index, null, error);
+    }
+
+    public boolean isSuccess() { return error == null; }
+    public int getIndex() { return index; }
+    public MtStatement getStatement() { return statement; }
+    public MtParseException getError() { return error; }
+}
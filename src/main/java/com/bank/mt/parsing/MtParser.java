@@ -1,22 +1,44 @@
 package com.bank.mt.parsing;
 
 import com.bank.mt.domain.MtStatement;
+import com.bank.mt.swift.AsciiCharSequence;
+import com.bank.mt.swift.MtMessageIndex;
+import com.bank.mt.swift.MtTagView;
+import com.bank.mt.swift.MtTokenizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * Parses raw SWIFT MT messages (MT940/941/942/950) into MtStatement objects.
  * Extracts header fields and key tags from Block 4.
+ *
+ * Two engines are available, selected via mt.parsing.engine:
+ *   REGEX       — one regex scan per header field / tag over the full message
+ *   SINGLE_PASS — one left-to-right scan via {@link MtTokenizer}, fields read from the offset index
  */
 @Component
 public class MtParser {
 
     private static final Logger log = LoggerFactory.getLogger(MtParser.class);
 
+    public enum Engine {
+        REGEX,
+        SINGLE_PASS
+    }
+
     // Block 1: sender BIC is positions 4–11 (8 chars) after F01
     private static final Pattern BLOCK1_PATTERN = Pattern.compile("\\{1:F\\d{2}([A-Z0-9]{8,11})[A-Z0-9]*\\}");
 
@@ -29,6 +51,35 @@ public class MtParser {
     private static final Pattern TAG_25 = Pattern.compile(":25:(.+)");
     private static final Pattern TAG_28C = Pattern.compile(":28C:(\\d+)/(\\d+)");
 
+    /** Highest page number :28C: can carry (5n); larger values are rejected as malformed. */
+    public static final int MAX_PAGE_NUMBER = 99999;
+
+    // Batches below this size are parsed on the calling thread
+    private static final int MIN_PARALLEL_BATCH = 16;
+
+    @Value("${mt.parsing.engine:SINGLE_PASS}")
+    private Engine engine = Engine.SINGLE_PASS;
+
+    private final ForkJoinPool pool;
+
+    public MtParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    @Autowired
+    public MtParser(@Qualifier("parsingPool") ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    MtParser(Engine engine) {
+        this();
+        this.engine = engine;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
     public MtStatement parse(String rawMessage) {
         if (rawMessage == null || rawMessage.isBlank()) {
             throw new MtParseException("Raw message is null or blank");
@@ -37,9 +88,15 @@ public class MtParser {
         MtStatement stmt = new MtStatement();
         stmt.setRawMessage(rawMessage);
 
-        parseSenderBic(rawMessage, stmt);
-        parseBlock2(rawMessage, stmt);
-        parseBlock4Tags(rawMessage, stmt);
+        if (engine == Engine.REGEX) {
+            parseSenderBic(rawMessage, stmt);
+            parseBlock2(rawMessage, stmt);
+            parseBlock4Tags(rawMessage, stmt);
+        } else {
+            MtMessageIndex index = MtTokenizer.scan(rawMessage);
+            populate(index, stmt);
+            stmt.setTagView(new MtTagView(index));
+        }
 
         log.debug("Parsed MT{} ref={} acct={} page={}/{}",
                 stmt.getMessageType(), stmt.getTransactionReference(),
@@ -48,6 +105,112 @@ public class MtParser {
         return stmt;
     }
 
+    /**
+     * Parses a message straight from broker bytes. Header fields and tags are read
+     * by scanning the buffer in place (always the single-pass tokenizer, whatever
+     * the configured engine); the raw message is decoded to a String exactly once
+     * and the tag index is rebound to it. The buffer's position is not changed.
+     */
+    public MtStatement parse(ByteBuffer payload) {
+        if (payload == null || isBlank(payload)) {
+            throw new MtParseException("Raw message is null or blank");
+        }
+
+        MtMessageIndex index = MtTokenizer.scan(new AsciiCharSequence(payload));
+        MtStatement stmt = new MtStatement();
+        populate(index, stmt);
+
+        String raw = AsciiCharSequence.decode(payload);
+        stmt.setRawMessage(raw);
+        if (raw.length() == payload.remaining()) {
+            stmt.setTagView(new MtTagView(index.withSource(raw)));
+        }
+
+        log.debug("Parsed MT{} ref={} acct={} page={}/{} from {} bytes",
+                stmt.getMessageType(), stmt.getTransactionReference(),
+                stmt.getAccountNumber(), stmt.getPageNumber(), stmt.getTotalPages(),
+                payload.remaining());
+
+        return stmt;
+    }
+
+    /**
+     * Parses a batch in parallel on the parsing pool. Results are in input order;
+     * a message that fails to parse yields a failed {@link MtParseResult} instead of
+     * aborting the batch.
+     */
+    public List<MtParseResult> parseAll(List<String> rawMessages) {
+        return parseAll(rawMessages, pool);
+    }
+
+    /** Stream variant of {@link #parseAll(List)}; the stream is drained before parsing starts. */
+    public List<MtParseResult> parseAll(Stream<String> rawMessages) {
+        return parseAll(rawMessages.toList(), pool);
+    }
+
+    /** Parses a batch on an explicit pool, e.g. a smaller one for background replays. */
+    public List<MtParseResult> parseAll(List<String> rawMessages, ForkJoinPool pool) {
+        MtParseResult[] results = new MtParseResult[rawMessages.size()];
+        // Split into ~4 chunks per worker so uneven message sizes still balance out
+        int chunk = Math.max(MIN_PARALLEL_BATCH, rawMessages.size() / (pool.getParallelism() * 4));
+        BatchParse task = new BatchParse(rawMessages, results, 0, results.length, chunk);
+        if (results.length <= chunk) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        return Arrays.asList(results);
+    }
+
+    private MtParseResult parseOne(int index, String rawMessage) {
+        try {
+            return MtParseResult.success(index, parse(rawMessage));
+        } catch (MtParseException e) {
+            return MtParseResult.failure(index, e);
+        } catch (RuntimeException e) {
+            // e.g. a page number overflowing int — still one bad message, not a bad batch
+            return MtParseResult.failure(index, new MtParseException("Failed to parse message: " + e.getMessage(), e));
+        }
+    }
+
+    /** Halves the index range until it is small enough, writing each result into its own slot. */
+    private final class BatchParse extends RecursiveAction {
+
+        private final List<String> rawMessages;
+        private final MtParseResult[] results;
+        private final int from;
+        private final int to;
+        private final int chunk;
+
+        BatchParse(List<String> rawMessages, MtParseResult[] results, int from, int to, int chunk) {
+            this.rawMessages = rawMessages;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunk) {
+                for (int i = from; i < to; i++) {
+                    results[i] = parseOne(i, rawMessages.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchParse(rawMessages, results, from, mid, chunk),
+                    new BatchParse(rawMessages, results, mid, to, chunk));
+        }
+    }
+
+    private static boolean isBlank(ByteBuffer payload) {
+        for (int p = payload.position(); p < payload.limit(); p++) {
+            if (payload.get(p) > ' ') return false;
+        }
+        return true;
+    }
+
     private void parseSenderBic(String raw, MtStatement stmt) {
         Matcher m = BLOCK1_PATTERN.matcher(raw);
         if (m.find()) {
@@ -90,7 +253,7 @@ public class MtParser {
         Matcher page = TAG_28C.matcher(raw);
         if (page.find()) {
             stmt.setStatementNumber(page.group(1));
-            int pageIndicator = Integer.parseInt(page.group(2));
+            int pageIndicator = pageNumber(page.group(2));
             // In MT format :28C:SSSSS/PPPPP — the second number can mean page or total.
             // We parse the full set: look for all :28C: to determine multi-page.
             // Convention used here: :28C:statementNum/totalPages for first occurrence,
@@ -123,18 +286,179 @@ public class MtParser {
         boolean hasFinalClosing = raw.contains(":62F:");
         boolean hasIntermediateClosing = raw.contains(":62M:");
 
+        stmt.setTotalPages(totalPages(pageIndicator, hasFirstOpening, hasIntermediateOpening,
+                hasFinalClosing, hasIntermediateClosing));
+    }
+
+    private static int totalPages(int pageIndicator,
+                                  boolean hasFirstOpening, boolean hasIntermediateOpening,
+                                  boolean hasFinalClosing, boolean hasIntermediateClosing) {
         if (hasFirstOpening && hasFinalClosing && !hasIntermediateOpening && !hasIntermediateClosing) {
             // Single-page statement: first opening + final closing, no intermediate tags
-            stmt.setTotalPages(pageIndicator);
+            return pageIndicator;
         } else if (hasIntermediateOpening && hasFinalClosing) {
             // Last page of multi-page: we now know totalPages = this page number
-            stmt.setTotalPages(pageIndicator);
+            return pageIndicator;
         } else if (hasIntermediateOpening || hasIntermediateClosing) {
             // First or middle page of multi-page — total unknown
-            stmt.setTotalPages(0);
+            return 0;
         } else {
-            stmt.setTotalPages(pageIndicator);
+            return pageIndicator;
+        }
+    }
+
+    // ---- Single-pass engine: all fields read from the tokenizer's offset index ----
+
+    private void populate(MtMessageIndex index, MtStatement stmt) {
+        CharSequence raw = index.source();
+        populateSenderBic(index, raw, stmt);
+        populateBlock2(index, raw, stmt);
+        populateBlock4Tags(index, raw, stmt);
+    }
+
+    /** Block 1 content: F<2 digits><LT address>, alphanumeric up to the closing brace. */
+    private void populateSenderBic(MtMessageIndex index, CharSequence raw, MtStatement stmt) {
+        if (!index.hasBlock(1)) return;
+        int start = index.blockStart(1);
+        int end = index.blockEnd(1);
+        if (end - start < 3 + 8 || raw.charAt(start) != 'F'
+                || !MtTokenizer.isDigit(raw.charAt(start + 1)) || !MtTokenizer.isDigit(raw.charAt(start + 2))) {
+            return;
+        }
+        if (alphanumericRun(raw, start + 3, end) != end - start - 3) return;
+        stmt.setSenderBic(index.slice(start + 3, start + 11));
+    }
+
+    /**
+     * Block 2 content:
+     *   input  — I<type:3><receiver:8-12><\w*>
+     *   output — O<type:3><time:4><receiver:8-12>...
+     */
+    private void populateBlock2(MtMessageIndex index, CharSequence raw, MtStatement stmt) {
+        if (!index.hasBlock(2)) return;
+        int start = index.blockStart(2);
+        int end = index.blockEnd(2);
+        if (end - start < 4 || !digits(raw, start + 1, 3)) return;
+
+        char direction = raw.charAt(start);
+        int bicStart;
+        if (direction == 'I') {
+            bicStart = start + 4;
+        } else if (direction == 'O' && digits(raw, start + 4, 4)) {
+            bicStart = start + 8;
+        } else {
+            return;
+        }
+
+        int run = Math.min(alphanumericRun(raw, bicStart, end), 12);
+        if (run < 8) return;
+        if (direction == 'I' && !wordChars(raw, bicStart + run, end)) return;
+
+        stmt.setMessageType("MT" + index.slice(start + 1, start + 4));
+        setReceiverBicWithBranch(stmt, index.slice(bicStart, bicStart + run));
+    }
+
+    private void populateBlock4Tags(MtMessageIndex index, CharSequence raw, MtStatement stmt) {
+        boolean hasFirstOpening = false;
+        boolean hasIntermediateOpening = false;
+        boolean hasFinalClosing = false;
+        boolean hasIntermediateClosing = false;
+        int ref = -1;
+        int acct = -1;
+        int page = -1;
+
+        for (int i = 0; i < index.tagCount(); i++) {
+            // Only 2x and 60x/62x tags matter here; skip the :61:/:86: bulk on two chars
+            int name = index.tagNameStart(i);
+            char lead = raw.charAt(name);
+            if (lead != '2' && (lead != '6' || raw.charAt(name + 1) == '1')) {
+                continue;
+            }
+            if (ref < 0 && index.tagIs(i, "20") && index.firstLineEnd(i) > index.valueStart(i)) {
+                ref = i;
+            } else if (acct < 0 && index.tagIs(i, "25") && index.firstLineEnd(i) > index.valueStart(i)) {
+                acct = i;
+            } else if (page < 0 && index.tagIs(i, "28C")) {
+                page = i;
+            } else if (index.tagIs(i, "60F")) {
+                hasFirstOpening = true;
+            } else if (index.tagIs(i, "60M")) {
+                hasIntermediateOpening = true;
+            } else if (index.tagIs(i, "62F")) {
+                hasFinalClosing = true;
+            } else if (index.tagIs(i, "62M")) {
+                hasIntermediateClosing = true;
+            }
+        }
+
+        if (ref >= 0) {
+            stmt.setTransactionReference(index.slice(index.valueStart(ref), index.firstLineEnd(ref)).trim());
+        }
+        if (acct >= 0) {
+            stmt.setAccountNumber(index.slice(index.valueStart(acct), index.firstLineEnd(acct)).trim());
+        }
+
+        // :28C:<statement digits>/<page digits>
+        int slash = -1;
+        int pageEnd = -1;
+        if (page >= 0) {
+            int p = index.valueStart(page);
+            int end = index.valueEnd(page);
+            int stmtEnd = p;
+            while (stmtEnd < end && MtTokenizer.isDigit(raw.charAt(stmtEnd))) stmtEnd++;
+            if (stmtEnd > p && stmtEnd < end && raw.charAt(stmtEnd) == '/') {
+                slash = stmtEnd;
+                pageEnd = slash + 1;
+                while (pageEnd < end && MtTokenizer.isDigit(raw.charAt(pageEnd))) pageEnd++;
+            }
+        }
+        if (slash < 0 || pageEnd == slash + 1) {
+            stmt.setPageNumber(1);
+            stmt.setTotalPages(1);
+            return;
+        }
+
+        stmt.setStatementNumber(index.slice(index.valueStart(page), slash));
+        int pageIndicator = pageNumber(index.slice(slash + 1, pageEnd));
+        stmt.setPageNumber(pageIndicator);
+        stmt.setTotalPages(totalPages(pageIndicator, hasFirstOpening, hasIntermediateOpening,
+                hasFinalClosing, hasIntermediateClosing));
+    }
+
+    /** The :28C: page digits as a number, at most {@link #MAX_PAGE_NUMBER}. */
+    private static int pageNumber(String digits) {
+        int first = 0;
+        while (first < digits.length() - 1 && digits.charAt(first) == '0') first++;
+        if (digits.length() - first > 5) {
+            throw new MtParseException(":28C: page number " + digits + " exceeds " + MAX_PAGE_NUMBER);
+        }
+        return Integer.parseInt(digits, first, digits.length(), 10);
+    }
+
+    private static int alphanumericRun(CharSequence s, int from, int end) {
+        int p = from;
+        while (p < end) {
+            char c = s.charAt(p);
+            if (!((c >= 'A' && c <= 'Z') || MtTokenizer.isDigit(c))) break;
+            p++;
+        }
+        return p - from;
+    }
+
+    private static boolean wordChars(CharSequence s, int from, int end) {
+        for (int p = from; p < end; p++) {
+            char c = s.charAt(p);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) return false;
+        }
+        return true;
+    }
+
+    private static boolean digits(CharSequence s, int from, int count) {
+        if (from + count > s.length()) return false;
+        for (int p = from; p < from + count; p++) {
+            if (!MtTokenizer.isDigit(s.charAt(p))) return false;
         }
+        return true;
     }
 
     private String normalizeBic(String bic) {
@@ -0,0 +1,37 @@
+package com.bank.mt.parsing;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 checksum used for duplicate page detection.
+ * Hashing the UTF-8 bytes of a String and hashing the original broker bytes
+ * yield the same value, so either ingestion path can supply it.
+ */
+public final class PageChecksum {
+
+    private PageChecksum() {
+    }
+
+    public static String of(String content) {
+        return HexFormat.of().formatHex(sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /** Hashes the remaining bytes without moving the buffer's position. */
+    public static String of(ByteBuffer content) {
+        MessageDigest md = sha256();
+        md.update(content.duplicate());
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.domain.MtStatement;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bounded cache of parse results for MQ redeliveries and upstream resends.
+ *
+ * Keyed by a 64-bit FNV-1a fingerprint of the payload. Strings and ASCII bytes
+ * fingerprint identically, so a resend hits whichever path it arrives on. A hit is
+ * confirmed by comparing the payload with the cached raw message, so a fingerprint
+ * collision is only ever a miss. Callers get a copy of the cached statement, plus
+ * the SHA-256 checksum once anyone has computed it.
+ *
+ * Eviction is Caffeine's W-TinyLFU, bounded by an estimate of retained bytes
+ * (mt.parsing.cache.max-bytes; 0 disables the cache).
+ */
+@Component
+public class ParseResultCache {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // Rough per-entry overhead: statement fields, header strings, index arrays
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+    private static final int BYTES_PER_TAG = 12;
+
+    private final MtParser parser;
+    private final Cache<Long, Entry> cache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ParseResultCache(MtParser parser,
+                            MeterRegistry meterRegistry,
+                            @Value("${mt.parsing.cache.max-bytes:67108864}") long maxBytes) {
+        this.parser = parser;
+        this.hitCounter = meterRegistry.counter("mt.parsing.cache.hit");
+        this.missCounter = meterRegistry.counter("mt.parsing.cache.miss");
+        Counter evictionCounter = meterRegistry.counter("mt.parsing.cache.eviction");
+
+        if (maxBytes > 0) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumWeight(maxBytes)
+                    .weigher((Long key, Entry entry) -> entry.weight())
+                    .evictionListener((key, entry, cause) -> evictionCounter.increment())
+                    .build();
+            meterRegistry.gauge("mt.parsing.cache.bytes", cache,
+                    c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public MtStatement parse(String rawMessage) {
+        if (cache == null || rawMessage == null) {
+            return parser.parse(rawMessage);
+        }
+        long key = fingerprint(rawMessage);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.raw.equals(rawMessage)) {
+            hitCounter.increment();
+            return entry.statement();
+        }
+        missCounter.increment();
+        MtStatement parsed = parser.parse(rawMessage);
+        cache.put(key, new Entry(parsed, null));
+        return parsed;
+    }
+
+    /**
+     * Byte variant. On a miss the payload is parsed and hashed from the bytes, as in
+     * {@code IngestionService.ingest(ByteBuffer)}, and both results are cached.
+     */
+    public MtStatement parse(ByteBuffer payload) {
+        if (cache == null || payload == null) {
+            MtStatement parsed = parser.parse(payload);
+            parsed.setChecksum(PageChecksum.of(payload));
+            return parsed;
+        }
+        long key = fingerprint(payload);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && sameContent(entry.raw, payload)) {
+            hitCounter.increment();
+            if (entry.checksum == null) {
+                entry.checksum = PageChecksum.of(payload);
+            }
+            return entry.statement();
+        }
+        missCounter.increment();
+        MtStatement parsed = parser.parse(payload);
+        String checksum = PageChecksum.of(payload);
+        parsed.setChecksum(checksum);
+        cache.put(key, new Entry(parsed, checksum));
+        return parsed;
+    }
+
+    /**
+     * SHA-256 of the statement's raw message: taken from the statement or the cache
+     * if already known, otherwise computed once and remembered for later resends.
+     */
+    public String checksum(MtStatement statement) {
+        if (statement.getChecksum() != null) {
+            return statement.getChecksum();
+        }
+        String raw = statement.getRawMessage();
+        Entry entry = cache != null ? cache.getIfPresent(fingerprint(raw)) : null;
+        boolean cached = entry != null && entry.raw.equals(raw);
+        String checksum = cached && entry.checksum != null ? entry.checksum : PageChecksum.of(raw);
+        if (cached) {
+            entry.checksum = checksum;
+        }
+        statement.setChecksum(checksum);
+        return checksum;
+    }
+
+    /** Runs pending evictions now; Caffeine otherwise does this asynchronously. */
+    void cleanUp() {
+        if (cache != null) {
+            cache.cleanUp();
+        }
+    }
+
+    static long fingerprint(CharSequence s) {
+        long h = FNV_OFFSET;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return h ^ s.length();
+    }
+
+    static long fingerprint(ByteBuffer buf) {
+        long h = FNV_OFFSET;
+        for (int p = buf.position(), limit = buf.limit(); p < limit; p++) {
+            h = (h ^ (buf.get(p) & 0xFF)) * FNV_PRIME;
+        }
+        return h ^ buf.remaining();
+    }
+
+    private static boolean sameContent(String raw, ByteBuffer buf) {
+        int start = buf.position();
+        if (raw.length() != buf.remaining()) {
+            return false;
+        }
+        for (int i = 0; i < raw.length(); i++) {
+            if (raw.charAt(i) != (buf.get(start + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Cached parse result. The template statement is never handed out, only copies of it. */
+    private static final class Entry {
+
+        private final String raw;
+        private final MtStatement template;
+        private volatile String checksum;
+
+        Entry(MtStatement parsed, String checksum) {
+            this.template = parsed.copy();
+            this.raw = template.getRawMessage();
+            this.checksum = checksum;
+            template.setChecksum(null);
+            template.setBalance(null);
+        }
+
+        MtStatement statement() {
+            MtStatement copy = template.copy();
+            copy.setChecksum(checksum);
+            return copy;
+        }
+
+        int weight() {
+            return raw.length() + template.getTagView().tagCount() * BYTES_PER_TAG + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+}
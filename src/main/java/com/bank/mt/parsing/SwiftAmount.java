@@ -0,0 +1,112 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.swift.MtTokenizer;
+
+/**
+ * Allocation-free parsing of SWIFT amounts ("1234,56" — comma decimal, no grouping)
+ * straight from message offsets into signed fixed-point longs.
+ *
+ * Values are held in thousandths of the currency unit so every ISO 4217 exponent
+ * (0–3 decimals) compares exactly without BigDecimal. SWIFT caps amounts at 15
+ * characters, which fits comfortably in a long at this scale.
+ */
+public final class SwiftAmount {
+
+    /** Fraction digits carried by every parsed value. */
+    public static final int SCALE = StatementBalance.SCALE;
+
+    private static final int MAX_LENGTH = 15;
+    private static final long[] POW10 = {1, 10, 100, 1000};
+
+    private SwiftAmount() {
+    }
+
+    /**
+     * Parses the amount starting at {@code start}, stopping at the first character
+     * that is neither a digit nor the decimal comma (or at {@code end}).
+     */
+    public static long parse(CharSequence s, int start, int end) {
+        long value = 0;
+        int fractionDigits = -1;
+        int p = start;
+        for (; p < end; p++) {
+            char c = s.charAt(p);
+            if (MtTokenizer.isDigit(c)) {
+                if (fractionDigits >= 0 && ++fractionDigits > SCALE) {
+                    throw malformed(s, start, end);
+                }
+                value = value * 10 + (c - '0');
+            } else if (c == ',' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        // SWIFT requires the comma, even for whole amounts ("100,")
+        if (fractionDigits < 0 || p - start < 2 || p - start > MAX_LENGTH) {
+            throw malformed(s, start, end);
+        }
+        return value * POW10[SCALE - fractionDigits];
+    }
+
+    /**
+     * Signed balance from a :60a:/:62a: value — D/C mark, YYMMDD date, 3-letter
+     * currency, amount. Debit balances are negative.
+     */
+    public static long balance(CharSequence s, int start, int end) {
+        if (end - start < 12) {
+            throw malformed(s, start, end);
+        }
+        long amount = parse(s, start + 10, end);
+        return switch (s.charAt(start)) {
+            case 'C' -> amount;
+            case 'D' -> -amount;
+            default -> throw malformed(s, start, end);
+        };
+    }
+
+    /**
+     * Signed amount of a :61: statement line — value date YYMMDD, optional entry
+     * date MMDD, mark (C, D, RC, RD), optional funds code letter, amount.
+     * Debits and reversals of credits are negative; reversals of debits are positive.
+     */
+    public static long statementLine(CharSequence s, int start, int end) {
+        int p = start + 6;
+        if (p + 4 <= end && digitsAt(s, p, 4)) {
+            p += 4;
+        }
+        if (p >= end) {
+            throw malformed(s, start, end);
+        }
+
+        boolean reversal = s.charAt(p) == 'R';
+        if (reversal) {
+            p++;
+        }
+        if (p >= end) {
+            throw malformed(s, start, end);
+        }
+        char mark = s.charAt(p++);
+        if (mark != 'C' && mark != 'D') {
+            throw malformed(s, start, end);
+        }
+        if (p < end && s.charAt(p) >= 'A' && s.charAt(p) <= 'Z') {
+            p++; // funds code — third character of the currency code
+        }
+
+        long amount = parse(s, p, end);
+        return (mark == 'C') != reversal ? amount : -amount;
+    }
+
+    private static boolean digitsAt(CharSequence s, int p, int count) {
+        for (int k = 0; k < count; k++) {
+            if (!MtTokenizer.isDigit(s.charAt(p + k))) return false;
+        }
+        return true;
+    }
+
+    private static MtParseException malformed(CharSequence s, int start, int end) {
+        return new MtParseException("Malformed SWIFT amount field: " + s.subSequence(start, end));
+    }
+}
@@ -1,11 +1,23 @@
 package com.bank.mt.repository;
 
+import com.bank.mt.domain.AggregationStatus;
 import com.bank.mt.domain.MtAggregationPage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface MtAggregationPageRepository extends JpaRepository<MtAggregationPage, Long> {
 
     boolean existsByAggregationIdAndChecksum(Long aggregationId, String checksum);
+
+    @Query("SELECT p.checksum FROM MtAggregationPage p WHERE p.aggregation.id = :aggregationId")
+    List<String> findChecksumsByAggregationId(@Param("aggregationId") Long aggregationId);
+
+    /** (aggregation id, checksum) pairs for every page of aggregations in the given status. */
+    @Query("SELECT p.aggregation.id, p.checksum FROM MtAggregationPage p WHERE p.aggregation.status = :status")
+    List<Object[]> findChecksumsByAggregationStatus(@Param("status") AggregationStatus status);
 }
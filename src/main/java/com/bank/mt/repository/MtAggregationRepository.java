@@ -2,7 +2,9 @@ package com.bank.mt.repository;
 
 import com.bank.mt.domain.AggregationStatus;
 import com.bank.mt.domain.MtAggregation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +19,38 @@ public interface MtAggregationRepository extends JpaRepository<MtAggregation, Lo
     Optional<MtAggregation> findByStatementNumberAndAccountNumberAndMessageTypeAndTransactionReference(
             String statementNumber, String accountNumber, String messageType, String transactionReference);
 
-    @Query("SELECT a FROM MtAggregation a WHERE a.status = :status AND a.createdAt < :cutoff")
-    List<MtAggregation> findExpiredAggregations(@Param("status") AggregationStatus status,
-                                                 @Param("cutoff") LocalDateTime cutoff);
+    List<MtAggregation> findByStatus(AggregationStatus status);
+
+    @Query("SELECT a.id FROM MtAggregation a WHERE a.status = :status AND a.createdAt < :cutoff ORDER BY a.id")
+    List<Long> findExpiredIds(@Param("status") AggregationStatus status,
+                              @Param("cutoff") LocalDateTime cutoff,
+                              Pageable pageable);
+
+    /** Rejects those of the given aggregations that are still in progress. */
+    @Modifying
+    @Query("UPDATE MtAggregation a SET a.status = com.bank.mt.domain.AggregationStatus.REJECTED, " +
+           "a.updatedAt = CURRENT_TIMESTAMP, a.version = a.version + 1 " +
+           "WHERE a.id IN :ids AND a.status = com.bank.mt.domain.AggregationStatus.IN_PROGRESS")
+    int rejectInProgress(@Param("ids") List<Long> ids);
+
+    @Query("SELECT a.id, a.createdAt FROM MtAggregation a WHERE a.status = :status")
+    List<Object[]> findIdAndCreatedAtByStatus(@Param("status") AggregationStatus status);
+
+    /** In-flight groups with their pages in one query — used to rebuild in-memory aggregation state. */
+    @Query("SELECT DISTINCT a FROM MtAggregation a LEFT JOIN FETCH a.pages WHERE a.status = :status")
+    List<MtAggregation> findWithPagesByStatus(@Param("status") AggregationStatus status);
+
+    @Query("SELECT a FROM MtAggregation a WHERE a.status <> :status AND a.updatedAt >= :since")
+    List<MtAggregation> findByStatusNotAndUpdatedSince(@Param("status") AggregationStatus status,
+                                                        @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("UPDATE MtAggregation a SET a.totalPages = :totalPages, a.receivedPages = :receivedPages, " +
+           "a.pageBitmap = :pageBitmap, a.status = :status, a.updatedAt = CURRENT_TIMESTAMP, " +
+           "a.version = a.version + 1 WHERE a.id = :id")
+    int updateProgress(@Param("id") Long id,
+                       @Param("totalPages") int totalPages,
+                       @Param("receivedPages") int receivedPages,
+                       @Param("pageBitmap") byte[] pageBitmap,
+                       @Param("status") AggregationStatus status);
 }
@@ -8,23 +8,95 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MtMessageOdsRepository extends JpaRepository<MtMessageOds, Long> {
 
     /**
-     * Fetch a batch of NEW messages for processing.
-     * H2 does not support FOR UPDATE SKIP LOCKED, so we use a simple query here.
-     * In production (PostgreSQL), this would use: FOR UPDATE SKIP LOCKED
+     * Fetch a batch of NEW messages for processing. Takes no locks: callers claim the
+     * rows with {@link #updateStatusBatch} as a compare-and-set on the status.
      */
     @Query("SELECT m FROM MtMessageOds m WHERE m.status = :status ORDER BY m.id")
     List<MtMessageOds> findByStatusOrderByIdLimit(@Param("status") OdsStatus status,
                                                    org.springframework.data.domain.Pageable pageable);
 
+    /**
+     * Locks up to {@code limit} rows in {@code status}, skipping rows other transactions
+     * hold, and returns their ids. Must run inside the transaction that claims them.
+     */
+    @Query(value = "SELECT id FROM mt_message_ods WHERE status = :status ORDER BY id LIMIT :limit " +
+                   "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockIdsByStatusSkipLocked(@Param("status") String status, @Param("limit") int limit);
+
+    /**
+     * Id and retry count of PROCESSING rows last claimed before {@code cutoff} that never
+     * reached aggregation (no page row refers to them): their claimer stopped mid-message.
+     * Pages parked in an open aggregation are left alone.
+     */
+    @Query("SELECT m.id, m.retryCount FROM MtMessageOds m WHERE m.status = com.bank.mt.domain.OdsStatus.PROCESSING " +
+           "AND m.updatedAt < :cutoff AND NOT EXISTS " +
+           "(SELECT p.id FROM MtAggregationPage p WHERE p.odsMessageId = m.id) ORDER BY m.id")
+    List<Object[]> findStaleClaims(@Param("cutoff") LocalDateTime cutoff,
+                                   org.springframework.data.domain.Pageable pageable);
+
+    /** Returns stale PROCESSING rows to NEW, counting the lost attempt; rows touched since {@code cutoff} are skipped. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.NEW, m.errorReason = :reason, " +
+           "m.retryCount = m.retryCount + 1, m.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE m.id IN :ids AND m.status = com.bank.mt.domain.OdsStatus.PROCESSING AND m.updatedAt < :cutoff")
+    int reclaimStale(@Param("ids") List<Long> ids,
+                     @Param("cutoff") LocalDateTime cutoff,
+                     @Param("reason") String reason);
+
+    /** Fails stale PROCESSING rows that have used up their reclaims; rows touched since {@code cutoff} are skipped. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.FAILED, m.errorReason = :reason, " +
+           "m.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE m.id IN :ids AND m.status = com.bank.mt.domain.OdsStatus.PROCESSING AND m.updatedAt < :cutoff")
+    int failStale(@Param("ids") List<Long> ids,
+                  @Param("cutoff") LocalDateTime cutoff,
+                  @Param("reason") String reason);
+
     @Modifying
     @Query("UPDATE MtMessageOds m SET m.status = :newStatus, m.updatedAt = CURRENT_TIMESTAMP WHERE m.id IN :ids AND m.status = :currentStatus")
     int updateStatusBatch(@Param("ids") List<Long> ids,
                           @Param("currentStatus") OdsStatus currentStatus,
                           @Param("newStatus") OdsStatus newStatus);
+
+    /** Deletes the message if it is still in {@code status}; returns 0 if it moved on meanwhile. */
+    @Modifying
+    @Query("DELETE FROM MtMessageOds m WHERE m.id = :id AND m.status = :status")
+    int deleteIfStatus(@Param("id") Long id, @Param("status") OdsStatus status);
+
+    /** Marks the given messages COMPLETED, whatever their current status. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.COMPLETED, " +
+           "m.updatedAt = CURRENT_TIMESTAMP WHERE m.id IN :ids")
+    int completeAll(@Param("ids") List<Long> ids);
+
+    /** Marks the given messages FAILED with {@code reason} and counts one more attempt. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.FAILED, m.errorReason = :reason, " +
+           "m.retryCount = m.retryCount + 1, m.updatedAt = CURRENT_TIMESTAMP WHERE m.id IN :ids")
+    int failAll(@Param("ids") List<Long> ids, @Param("reason") String reason);
+
+    /** Fails the given messages if still in {@code currentStatus}, recording the reason. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.FAILED, m.errorReason = :reason, " +
+           "m.updatedAt = CURRENT_TIMESTAMP WHERE m.id IN :ids AND m.status = :currentStatus")
+    int failBatch(@Param("ids") List<Long> ids,
+                  @Param("currentStatus") OdsStatus currentStatus,
+                  @Param("reason") String reason);
+
+    /** Fails the page messages of the given aggregations that are (now) REJECTED. */
+    @Modifying
+    @Query("UPDATE MtMessageOds m SET m.status = com.bank.mt.domain.OdsStatus.FAILED, m.errorReason = :reason, " +
+           "m.updatedAt = CURRENT_TIMESTAMP WHERE m.status = :currentStatus AND m.id IN " +
+           "(SELECT p.odsMessageId FROM MtAggregationPage p WHERE p.aggregation.id IN :aggregationIds " +
+           "AND p.aggregation.status = com.bank.mt.domain.AggregationStatus.REJECTED)")
+    int failByRejectedAggregations(@Param("aggregationIds") List<Long> aggregationIds,
+                                   @Param("currentStatus") OdsStatus currentStatus,
+                                   @Param("reason") String reason);
 }
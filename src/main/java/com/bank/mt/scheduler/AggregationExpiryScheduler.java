@@ -1,80 +1,160 @@
 package com.bank.mt.scheduler;
 
+import com.bank.mt.aggregation.AggregationExpiryTracker;
+import com.bank.mt.aggregation.DuplicatePageFilter;
+import com.bank.mt.aggregation.HashedTimingWheel;
+import com.bank.mt.aggregation.StatementFolds;
 import com.bank.mt.domain.AggregationStatus;
-import com.bank.mt.domain.MtAggregation;
-import com.bank.mt.domain.MtAggregationPage;
 import com.bank.mt.domain.OdsStatus;
 import com.bank.mt.repository.MtAggregationRepository;
 import com.bank.mt.repository.MtMessageOdsRepository;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 
 /**
- * Periodically checks for expired aggregations (exceeded 1-hour window).
+ * Expires aggregations that exceed the configured window (mt.aggregation.expiry-minutes).
  * Marks them REJECTED and updates associated ODS messages to FAILED.
+ *
+ * In-flight aggregations are tracked in a {@link HashedTimingWheel} from creation until
+ * completion, so a timeout fires within one tick (mt.aggregation.expiry-tick-ms). The
+ * database scan remains as a low-frequency reconciliation sweep
+ * (mt.aggregation.scheduler-interval-ms) for anything the wheel missed, e.g. rows left
+ * by a crashed node. Both paths expire in chunks (mt.aggregation.expiry-chunk-size) of
+ * set-based UPDATEs rather than loading each aggregation and its pages.
+ *
+ * In IN_MEMORY aggregation mode the engine expires its own groups instead.
  */
 @Component
-public class AggregationExpiryScheduler {
+@ConditionalOnProperty(name = "mt.aggregation.mode", havingValue = "DATABASE", matchIfMissing = true)
+public class AggregationExpiryScheduler implements AggregationExpiryTracker {
 
     private static final Logger log = LoggerFactory.getLogger(AggregationExpiryScheduler.class);
 
     private final MtAggregationRepository aggregationRepo;
     private final MtMessageOdsRepository odsRepo;
+    private final DuplicatePageFilter duplicateFilter;
+    private final StatementFolds folds;
+    private final TransactionTemplate transactionTemplate;
+    private final HashedTimingWheel<Long> wheel;
     private final Counter rejectedCounter;
+    private final DistributionSummary chunkAggregations;
+    private final DistributionSummary chunkOdsMessages;
+    private final int chunkSize;
 
     @Value("${mt.aggregation.expiry-minutes:60}")
     private int expiryMinutes;
 
     public AggregationExpiryScheduler(MtAggregationRepository aggregationRepo,
                                        MtMessageOdsRepository odsRepo,
-                                       MeterRegistry meterRegistry) {
+                                       DuplicatePageFilter duplicateFilter,
+                                       StatementFolds folds,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${mt.aggregation.expiry-tick-ms:1000}") long tickMillis,
+                                       @Value("${mt.aggregation.expiry-wheel-slots:512}") int wheelSlots,
+                                       @Value("${mt.aggregation.expiry-chunk-size:500}") int chunkSize) {
         this.aggregationRepo = aggregationRepo;
         this.odsRepo = odsRepo;
+        this.duplicateFilter = duplicateFilter;
+        this.folds = folds;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HashedTimingWheel<>(tickMillis, wheelSlots, System.currentTimeMillis());
         this.rejectedCounter = meterRegistry.counter("mt.aggregation.rejected");
+        this.chunkAggregations = meterRegistry.summary("mt.aggregation.expiry.chunk.aggregations");
+        this.chunkOdsMessages = meterRegistry.summary("mt.aggregation.expiry.chunk.ods");
+        this.chunkSize = Math.max(1, chunkSize);
+        meterRegistry.gauge("mt.aggregation.expiry.scheduled", wheel, HashedTimingWheel::size);
     }
 
-    @Scheduled(fixedDelayString = "${mt.aggregation.scheduler-interval-ms:60000}")
-    @Transactional
-    public void expireStaleAggregations() {
-        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(expiryMinutes);
-        List<MtAggregation> expired = aggregationRepo
-                .findExpiredAggregations(AggregationStatus.IN_PROGRESS, cutoff);
-
-        if (expired.isEmpty()) {
-            return;
+    /** Re-registers aggregations left in flight by the previous run. */
+    @PostConstruct
+    public void trackInFlight() {
+        List<Object[]> inFlight = aggregationRepo.findIdAndCreatedAtByStatus(AggregationStatus.IN_PROGRESS);
+        for (Object[] row : inFlight) {
+            track((Long) row[0], (LocalDateTime) row[1]);
         }
+        if (!inFlight.isEmpty()) {
+            log.info("Tracking {} in-flight aggregations for expiry", inFlight.size());
+        }
+    }
 
-        log.info("Found {} expired aggregations (cutoff={})", expired.size(), cutoff);
+    @Override
+    public void track(Long aggregationId, LocalDateTime createdAt) {
+        LocalDateTime start = createdAt != null ? createdAt : LocalDateTime.now();
+        long deadline = start.plusMinutes(expiryMinutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        wheel.schedule(aggregationId, deadline);
+    }
 
-        for (MtAggregation agg : expired) {
-            agg.setStatus(AggregationStatus.REJECTED);
-            aggregationRepo.save(agg);
+    @Override
+    public void untrack(Long aggregationId) {
+        wheel.cancel(aggregationId);
+    }
 
-            // Mark associated ODS messages as FAILED
-            for (MtAggregationPage page : agg.getPages()) {
-                if (page.getOdsMessageId() != null) {
-                    odsRepo.findById(page.getOdsMessageId()).ifPresent(ods -> {
-                        ods.setStatus(OdsStatus.FAILED);
-                        ods.setErrorReason("Aggregation timeout — not all pages received within "
-                                + expiryMinutes + " minutes");
-                        odsRepo.save(ods);
-                    });
-                }
+    @Scheduled(fixedRateString = "${mt.aggregation.expiry-tick-ms:1000}")
+    public void fireDueExpiries() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        for (int from = 0; from < due.size(); from += chunkSize) {
+            expireChunk(due.subList(from, Math.min(from + chunkSize, due.size())));
+        }
+    }
+
+    /** Reconciliation sweep over the table for expired aggregations the wheel did not fire. */
+    @Scheduled(fixedDelayString = "${mt.aggregation.scheduler-interval-ms:900000}")
+    public void expireStaleAggregations() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(expiryMinutes);
+        int total = 0;
+        while (true) {
+            List<Long> ids = aggregationRepo.findExpiredIds(AggregationStatus.IN_PROGRESS, cutoff,
+                    PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            ids.forEach(wheel::cancel);
+            int rejected = expireChunk(ids);
+            total += rejected;
+            if (rejected == 0) {
+                break; // completed concurrently; leave the rest for the next sweep
             }
+        }
+        if (total > 0) {
+            log.info("Reconciliation expired {} aggregations (cutoff={})", total, cutoff);
+        }
+    }
+
+    /**
+     * Rejects the chunk's aggregations that are still in progress and fails their page
+     * messages — two set-based UPDATEs in one transaction, whatever the chunk's page count.
+     * Returns the number of aggregations rejected.
+     */
+    private int expireChunk(List<Long> ids) {
+        String reason = "Aggregation timeout — not all pages received within " + expiryMinutes + " minutes";
+        int[] affected = transactionTemplate.execute(tx -> new int[] {
+                aggregationRepo.rejectInProgress(ids),
+                odsRepo.failByRejectedAggregations(ids, OdsStatus.PROCESSING, reason)});
 
-            rejectedCounter.increment();
-            log.warn("Rejected aggregation id={} stmt={} acct={} ({}/{} pages received)",
-                    agg.getId(), agg.getStatementNumber(), agg.getAccountNumber(),
-                    agg.getReceivedPages(), agg.getTotalPages());
+        ids.forEach(duplicateFilter::forget);
+        ids.forEach(folds::forget);
+        chunkAggregations.record(affected[0]);
+        chunkOdsMessages.record(affected[1]);
+        rejectedCounter.increment(affected[0]);
+        if (affected[0] > 0) {
+            log.warn("Rejected {} expired aggregations, failed {} page messages", affected[0], affected[1]);
         }
+        return affected[0];
     }
 }
@@ -0,0 +1,67 @@
+package com.bank.mt.swift;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Read-only CharSequence over the remaining bytes of a ByteBuffer, one char per byte.
+ *
+ * SWIFT FIN is ASCII-only, so the tokenizer can scan broker payloads in place;
+ * only the slices a caller asks for are turned into Strings.
+ * The buffer's position and limit are never modified.
+ */
+public final class AsciiCharSequence implements CharSequence {
+
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final int length;
+
+    public AsciiCharSequence(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.remaining());
+    }
+
+    private AsciiCharSequence(ByteBuffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return decode(buffer, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        return decode(buffer, offset, length);
+    }
+
+    /** Decodes the remaining bytes of {@code buffer} without moving its position. */
+    public static String decode(ByteBuffer buffer) {
+        return decode(buffer, buffer.position(), buffer.remaining());
+    }
+
+    /**
+     * UTF-8 decode of an absolute range. For pure-ASCII input the JDK takes its
+     * compact-string fast path (a plain byte copy); any stray non-ASCII byte is
+     * still decoded correctly rather than mangled.
+     */
+    static String decode(ByteBuffer buffer, int from, int len) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + from, len, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[len];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package com.bank.mt.swift;
+
+/**
+ * Compact offset index over a raw SWIFT FIN message, produced by {@link MtTokenizer}.
+ *
+ * Holds block content boundaries and, for every Block 4 tag, three offsets packed
+ * into a single int array: tag name start, value start and value end (exclusive,
+ * trailing CR/LF stripped). No substrings are created until a caller asks for one.
+ */
+public final class MtMessageIndex {
+
+    static final int STRIDE = 3;
+
+    private final CharSequence source;
+    private final int[] blocks;
+    private final int[] tags;
+    private final int tagCount;
+
+    MtMessageIndex(CharSequence source, int[] blocks, int[] tags, int tagCount) {
+        this.source = source;
+        this.blocks = blocks;
+        this.tags = tags;
+        this.tagCount = tagCount;
+    }
+
+    public CharSequence source() { return source; }
+
+    /**
+     * Same offsets over a different source — used when a byte-scanned message is
+     * decoded to a String of identical length (pure ASCII).
+     */
+    public MtMessageIndex withSource(CharSequence newSource) {
+        return new MtMessageIndex(newSource, blocks, tags, tagCount);
+    }
+
+    /** Content start of block {@code id} (just after "{n:"), or -1 if absent. */
+    public int blockStart(int id) { return blocks[id * 2]; }
+
+    /** Content end of block {@code id} (position of the closing brace), or -1 if absent. */
+    public int blockEnd(int id) { return blocks[id * 2 + 1]; }
+
+    public boolean hasBlock(int id) { return blocks[id * 2] >= 0; }
+
+    /** Content start of Block 4 (just after "{4:"), or -1 if absent. */
+    public int block4Start() { return blocks[8]; }
+
+    /** Position of the "-}" Block 4 terminator, or the message length if unterminated. */
+    public int block4End() { return blocks[9]; }
+
+    public int tagCount() { return tagCount; }
+
+    public int tagNameStart(int i) { return tags[i * STRIDE]; }
+
+    public int tagNameEnd(int i) { return tags[i * STRIDE + 1] - 1; }
+
+    /** Offset of the opening colon, i.e. where the tag's line begins. */
+    public int tagStart(int i) { return tags[i * STRIDE] - 1; }
+
+    public int valueStart(int i) { return tags[i * STRIDE + 1]; }
+
+    public int valueEnd(int i) { return tags[i * STRIDE + 2]; }
+
+    /** End of the first line of the tag value (multi-line fields such as :86: continue past it). */
+    public int firstLineEnd(int i) {
+        int end = valueEnd(i);
+        for (int p = valueStart(i); p < end; p++) {
+            char c = source.charAt(p);
+            if (c == '\n' || c == '\r') {
+                return p;
+            }
+        }
+        return end;
+    }
+
+    public boolean tagIs(int i, String name) {
+        int start = tagNameStart(i);
+        int len = tagNameEnd(i) - start;
+        if (len != name.length()) {
+            return false;
+        }
+        for (int k = 0; k < len; k++) {
+            if (source.charAt(start + k) != name.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Index of the first tag with the given name, or -1. */
+    public int indexOf(String name) {
+        return indexOf(name, 0);
+    }
+
+    public int indexOf(String name, int from) {
+        for (int i = from; i < tagCount; i++) {
+            if (tagIs(i, name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String tagName(int i) {
+        return source.subSequence(tagNameStart(i), tagNameEnd(i)).toString();
+    }
+
+    public String value(int i) {
+        return source.subSequence(valueStart(i), valueEnd(i)).toString();
+    }
+
+    public String slice(int start, int end) {
+        return source.subSequence(start, end).toString();
+    }
+}
@@ -0,0 +1,117 @@
+package com.bank.mt.swift;
+
+/**
+ * Immutable, flyweight view over the tags of a raw SWIFT message.
+ *
+ * Backed by the {@link MtMessageIndex} offsets into the original char data —
+ * tag names and values are only materialised as Strings when a caller asks.
+ * Obtain one via {@code MtStatement.getTagView()} so every pipeline stage shares
+ * the index built by the parser instead of re-splitting Block 4.
+ */
+public final class MtTagView {
+
+    private final MtMessageIndex index;
+
+    public MtTagView(MtMessageIndex index) {
+        this.index = index;
+    }
+
+    public static MtTagView of(CharSequence raw) {
+        return new MtTagView(MtTokenizer.scan(raw));
+    }
+
+    public MtMessageIndex index() {
+        return index;
+    }
+
+    public CharSequence source() {
+        return index.source();
+    }
+
+    public int tagCount() {
+        return index.tagCount();
+    }
+
+    /** First-line value of the first occurrence of {@code tag}, or null if absent. */
+    public String firstValue(String tag) {
+        int i = index.indexOf(tag);
+        return i < 0 ? null : index.slice(index.valueStart(i), index.firstLineEnd(i));
+    }
+
+    public boolean contains(String tag) {
+        return index.indexOf(tag) >= 0;
+    }
+
+    /**
+     * The Block 1 + Block 2 header exactly as received, e.g. "{1:...}{2:...}",
+     * or an empty string if either block is missing.
+     */
+    public String swiftHeader() {
+        if (!index.hasBlock(1) || !index.hasBlock(2)) {
+            return "";
+        }
+        return index.slice(index.blockStart(1) - 3, index.blockEnd(2) + 1);
+    }
+
+    /** Appends the full tag line(s) ":tag:value" for tag {@code i}, including continuation lines. */
+    public StringBuilder appendTag(int i, StringBuilder sb) {
+        return sb.append(index.source(), index.tagStart(i), index.valueEnd(i));
+    }
+
+    /** Returns a fresh cursor over the :61: statement lines and their optional :86: narratives. */
+    public TransactionCursor transactions() {
+        return new TransactionCursor(index);
+    }
+
+    /**
+     * Flyweight cursor over :61:/:86: pairs. The same instance is repositioned on
+     * every {@link #next()}; offsets are exposed directly and Strings are only
+     * created by {@link #statementLine()} / {@link #information()}.
+     */
+    public static final class TransactionCursor {
+
+        private final MtMessageIndex index;
+        private int line = -1;
+        private int info = -1;
+        private int position;
+
+        TransactionCursor(MtMessageIndex index) {
+            this.index = index;
+        }
+
+        public boolean next() {
+            for (int i = position; i < index.tagCount(); i++) {
+                if (index.tagIs(i, "61")) {
+                    line = i;
+                    info = i + 1 < index.tagCount() && index.tagIs(i + 1, "86") ? i + 1 : -1;
+                    position = info >= 0 ? info + 1 : i + 1;
+                    return true;
+                }
+            }
+            position = index.tagCount();
+            line = -1;
+            info = -1;
+            return false;
+        }
+
+        /** Tag index of the current :61: within the underlying {@link MtMessageIndex}. */
+        public int lineTag() { return line; }
+
+        /** Tag index of the current :86:, or -1 if the statement line has no narrative. */
+        public int informationTag() { return info; }
+
+        public int lineValueStart() { return index.valueStart(line); }
+
+        public int lineValueEnd() { return index.valueEnd(line); }
+
+        public boolean hasInformation() { return info >= 0; }
+
+        public String statementLine() {
+            return index.value(line);
+        }
+
+        public String information() {
+            return info >= 0 ? index.value(info) : null;
+        }
+    }
+}
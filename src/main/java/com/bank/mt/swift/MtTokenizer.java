@@ -0,0 +1,192 @@
+package com.bank.mt.swift;
+
+import java.util.Arrays;
+
+/**
+ * Single left-to-right scanner for SWIFT FIN messages.
+ *
+ * Records the content boundaries of blocks 1–5 and the offsets of every Block 4
+ * tag in one pass, without regular expressions or intermediate strings.
+ * Block 4 tags start at the beginning of a line (":NN:" or ":NNa:"); any other
+ * line is treated as a continuation of the previous tag's value.
+ */
+public final class MtTokenizer {
+
+    private static final int STRIDE = MtMessageIndex.STRIDE;
+    private static final int MAX_BLOCK_ID = 5;
+    private static final int INITIAL_TAG_CAPACITY = 16;
+    private static final int[] NO_TAGS = new int[0];
+
+    private MtTokenizer() {
+    }
+
+    public static MtMessageIndex scan(CharSequence s) {
+        int n = s.length();
+        int[] blocks = new int[(MAX_BLOCK_ID + 1) * 2];
+        Arrays.fill(blocks, -1);
+        int[] tags = NO_TAGS;
+        int tagCount = 0;
+
+        int i = 0;
+        while (i < n) {
+            if (s.charAt(i) != '{' || i + 2 >= n || s.charAt(i + 2) != ':') {
+                i++;
+                continue;
+            }
+            int id = s.charAt(i + 1) - '0';
+            int contentStart = i + 3;
+
+            if (id == 4 && blocks[8] < 0) {
+                int block4End = indexOfTerminator(s, contentStart, n);
+                tags = scanBlock4(s, contentStart, block4End);
+                tagCount = tags[tags.length - 1];
+                blocks[8] = contentStart;
+                blocks[9] = block4End;
+                i = block4End < n ? block4End + 2 : n;
+                continue;
+            }
+
+            int end = closingBrace(s, contentStart, n);
+            if (id >= 0 && id <= MAX_BLOCK_ID && blocks[id * 2] < 0) {
+                blocks[id * 2] = contentStart;
+                blocks[id * 2 + 1] = end;
+            }
+            i = end < n ? end + 1 : n;
+        }
+
+        return new MtMessageIndex(s, blocks, tags, tagCount);
+    }
+
+    /**
+     * Walks Block 4 line by line: each line is either a new tag or a continuation of
+     * the previous value. Lines end at CR LF, LF or a bare CR. Returns the packed offsets
+     * with the tag count in the last slot.
+     */
+    private static int[] scanBlock4(CharSequence s, int from, int to) {
+        // Roughly one tag per 32 chars of body avoids regrowing on large statements
+        int[] tags = new int[Math.max(INITIAL_TAG_CAPACITY, (to - from) >> 5) * STRIDE + 1];
+        int tagCount = 0;
+        int open = -1;
+        int line = from;
+        // Next LF / CR at or after line (-1 once there are none, -2 before the first search);
+        // each is searched for again only after the walk passes it, so the body is scanned twice at most
+        int lf = -2;
+        int cr = -2;
+        while (line < to) {
+            if (s.charAt(line) == ':') {
+                int nameEnd = tagNameEnd(s, line + 1, to);
+                if (nameEnd > 0) {
+                    if (open >= 0) {
+                        tags[open * STRIDE + 2] = trimLineEnd(s, tags[open * STRIDE + 1], line);
+                    }
+                    if ((tagCount + 1) * STRIDE >= tags.length) {
+                        tags = Arrays.copyOf(tags, tags.length * 2);
+                    }
+                    int base = tagCount * STRIDE;
+                    tags[base] = line + 1;
+                    tags[base + 1] = nameEnd + 1;
+                    open = tagCount++;
+                }
+            }
+            if (lf != -1 && lf < line) {
+                lf = indexOf(s, '\n', line, to);
+            }
+            if (cr != -1 && cr < line) {
+                cr = indexOf(s, '\r', line, to);
+            }
+            int lineEnd = lf < 0 ? cr : cr < 0 ? lf : Math.min(lf, cr);
+            if (lineEnd < 0) {
+                line = to;
+            } else if (lineEnd == cr && lineEnd + 1 < to && s.charAt(lineEnd + 1) == '\n') {
+                line = lineEnd + 2;
+            } else {
+                line = lineEnd + 1;
+            }
+        }
+        if (open >= 0) {
+            tags[open * STRIDE + 2] = trimLineEnd(s, tags[open * STRIDE + 1], to);
+        }
+        tags[tags.length - 1] = tagCount;
+        return tags;
+    }
+
+    /**
+     * Returns the position of the colon closing a tag name that starts at {@code p}
+     * (two digits plus an optional uppercase letter), or -1 if this is not a tag.
+     */
+    private static int tagNameEnd(CharSequence s, int p, int n) {
+        if (p + 2 >= n || !isDigit(s.charAt(p)) || !isDigit(s.charAt(p + 1))) {
+            return -1;
+        }
+        char c = s.charAt(p + 2);
+        if (c == ':') {
+            return p + 2;
+        }
+        if (c >= 'A' && c <= 'Z' && p + 3 < n && s.charAt(p + 3) == ':') {
+            return p + 3;
+        }
+        return -1;
+    }
+
+    /**
+     * Position of the first "-}" at or after {@code from}, or {@code n} if unterminated.
+     * Strings use the JDK's intrinsic indexOf; other sources (byte views) fall back to a loop.
+     */
+    private static int indexOfTerminator(CharSequence s, int from, int n) {
+        if (s instanceof String str) {
+            int p = str.indexOf("-}", from);
+            return p < 0 ? n : p;
+        }
+        for (int p = from; p + 1 < n; p++) {
+            if (s.charAt(p) == '-' && s.charAt(p + 1) == '}') {
+                return p;
+            }
+        }
+        return n;
+    }
+
+    private static int indexOf(CharSequence s, char c, int from, int to) {
+        if (s instanceof String str) {
+            int p = str.indexOf(c, from);
+            return p < to ? p : -1;
+        }
+        for (int p = from; p < to; p++) {
+            if (s.charAt(p) == c) {
+                return p;
+            }
+        }
+        return -1;
+    }
+
+    /** Finds the brace closing a header block, allowing nested sub-blocks as in {3:{108:...}}. */
+    private static int closingBrace(CharSequence s, int from, int n) {
+        int depth = 0;
+        for (int p = from; p < n; p++) {
+            char c = s.charAt(p);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                if (depth == 0) {
+                    return p;
+                }
+                depth--;
+            }
+        }
+        return n;
+    }
+
+    private static int trimLineEnd(CharSequence s, int start, int end) {
+        while (end > start) {
+            char c = s.charAt(end - 1);
+            if (c != '\n' && c != '\r') {
+                break;
+            }
+            end--;
+        }
+        return end;
+    }
+
+    public static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
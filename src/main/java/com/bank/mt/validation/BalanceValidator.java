@@ -0,0 +1,130 @@
+package com.bank.mt.validation;
+
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.swift.MtMessageIndex;
+import com.bank.mt.parsing.MtParseException;
+import com.bank.mt.parsing.SwiftAmount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Verifies that a statement's balances reconcile before it is aggregated or routed:
+ * opening (:60F:/:60M:) + signed sum of :61: amounts = closing (:62F:/:62M:).
+ *
+ * Amounts are read from the tag offsets the parser already indexed, as longs —
+ * no BigDecimal and no substrings. The result is kept on the statement so
+ * aggregation can store per-page totals and verify the combined statement
+ * from those totals alone.
+ *
+ * Only MT940/MT950 are checked; MT941/MT942 carry no opening/closing pair over :61: lines.
+ */
+@Component
+public class BalanceValidator {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceValidator.class);
+
+    public enum Mode {
+        OFF,    // skip verification entirely
+        LOG,    // verify and log mismatches, but let the statement through
+        REJECT  // verify and stop mismatching statements
+    }
+
+    @Value("${mt.validation.balance.mode:LOG}")
+    private Mode mode = Mode.LOG;
+
+    private final Counter passedCounter;
+    private final Counter failedCounter;
+
+    @Autowired
+    public BalanceValidator(MeterRegistry meterRegistry) {
+        this.passedCounter = meterRegistry.counter("mt.validation.balance.passed");
+        this.failedCounter = meterRegistry.counter("mt.validation.balance.failed");
+    }
+
+    BalanceValidator(MeterRegistry meterRegistry, Mode mode) {
+        this(meterRegistry);
+        this.mode = mode;
+    }
+
+    /**
+     * Verifies the statement, attaching its {@link StatementBalance} when one applies.
+     * A balance already on the statement (e.g. a combined statement built from page
+     * totals) is checked as is. Returns false only if the statement must be rejected.
+     */
+    public boolean verify(MtStatement statement) {
+        if (mode == Mode.OFF || !isApplicable(statement)) {
+            return true;
+        }
+
+        StatementBalance balance = statement.getBalance();
+        if (balance == null) {
+            try {
+                balance = compute(statement.getTagView().index());
+            } catch (MtParseException e) {
+                failedCounter.increment();
+                log.warn("Balance check failed for {} ref={} acct={}: {}", statement.getMessageType(),
+                        statement.getTransactionReference(), statement.getAccountNumber(), e.getMessage());
+                return mode != Mode.REJECT;
+            }
+            if (balance == null) {
+                return true;
+            }
+            statement.setBalance(balance);
+        }
+
+        if (balance.reconciles()) {
+            passedCounter.increment();
+            return true;
+        }
+
+        failedCounter.increment();
+        log.warn("Balance mismatch for {} ref={} acct={} page={}: {} (off by {})", statement.getMessageType(),
+                statement.getTransactionReference(), statement.getAccountNumber(), statement.getPageNumber(),
+                balance, StatementBalance.format(balance.discrepancy()));
+        return mode != Mode.REJECT;
+    }
+
+    /**
+     * Walks the tag index once. Returns null when the opening or closing
+     * balance is missing (nothing to reconcile against).
+     */
+    static StatementBalance compute(MtMessageIndex index) {
+        CharSequence raw = index.source();
+        boolean hasOpening = false;
+        boolean hasClosing = false;
+        long opening = 0;
+        long closing = 0;
+        long movement = 0;
+
+        for (int i = 0; i < index.tagCount(); i++) {
+            int name = index.tagNameStart(i);
+            if (raw.charAt(name) != '6') {
+                continue;
+            }
+            char second = raw.charAt(name + 1);
+            if (second == '1') {
+                if (index.tagNameEnd(i) == name + 2) {
+                    movement += SwiftAmount.statementLine(raw, index.valueStart(i), index.firstLineEnd(i));
+                }
+            } else if (!hasOpening && (index.tagIs(i, "60F") || index.tagIs(i, "60M"))) {
+                opening = SwiftAmount.balance(raw, index.valueStart(i), index.firstLineEnd(i));
+                hasOpening = true;
+            } else if (!hasClosing && (index.tagIs(i, "62F") || index.tagIs(i, "62M"))) {
+                closing = SwiftAmount.balance(raw, index.valueStart(i), index.firstLineEnd(i));
+                hasClosing = true;
+            }
+        }
+
+        return hasOpening && hasClosing ? new StatementBalance(opening, movement, closing) : null;
+    }
+
+    private static boolean isApplicable(MtStatement statement) {
+        return "MT940".equals(statement.getMessageType()) || "MT950".equals(statement.getMessageType());
+    }
+}
@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Replaces the identity columns of the high-volume tables with pooled sequences so
+ * Hibernate can assign ids without a round trip per row and batch the inserts.
+ *
+ * Each sequence increments by the flyway placeholder id-allocation-size
+ * (mt.persistence.id-allocation-size) and starts one block past the table's current
+ * max id. The column default becomes nextval(...), so producers that insert without an
+ * id keep working: each such row takes the top of a block no Hibernate pool ever uses.
+ *
+ * Written in Java because the start value depends on the data and neither H2 nor
+ * PostgreSQL accepts a subquery in START WITH.
+ */
+public class V13__pooled_id_sequences extends BaseJavaMigration {
+
+    private static final List<String> TABLES = List.of(
+            "mt_message_ods", "mt_aggregation", "mt_aggregation_page", "routing_rule");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        long allocationSize = Long.parseLong(context.getConfiguration().getPlaceholders()
+                .getOrDefault("id-allocation-size", "50"));
+        if (allocationSize < 1) {
+            throw new IllegalArgumentException("id-allocation-size must be positive: " + allocationSize);
+        }
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long maxId;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    rs.next();
+                    maxId = rs.getLong(1);
+                }
+                String sequence = table + "_seq";
+                statement.execute("CREATE SEQUENCE " + sequence
+                        + " START WITH " + (maxId + allocationSize) + " INCREMENT BY " + allocationSize);
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id DROP IDENTITY");
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id SET DEFAULT nextval('" + sequence + "')");
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+-- Per-page balance totals (fixed-point, thousandths of the currency unit) so a
+-- completed aggregation can be verified without re-reading every page body.
+ALTER TABLE mt_aggregation_page ADD COLUMN opening_balance BIGINT;
+ALTER TABLE mt_aggregation_page ADD COLUMN net_movement BIGINT;
+ALTER TABLE mt_aggregation_page ADD COLUMN closing_balance BIGINT;
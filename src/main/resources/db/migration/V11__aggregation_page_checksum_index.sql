@@ -0,0 +1,2 @@
+-- Backs the duplicate-page lookup for pages the in-memory pre-filter cannot rule out.
+CREATE INDEX idx_agg_page_checksum ON mt_aggregation_page(aggregation_id, checksum);
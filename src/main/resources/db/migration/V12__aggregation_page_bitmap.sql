@@ -0,0 +1,3 @@
+-- Page-presence bitset (java.util.BitSet bytes, bit n = page n received) so completion
+-- and missing-page reporting need no page-row counting. NULL on rows written before V12.
+ALTER TABLE mt_aggregation ADD COLUMN page_bitmap BYTEA;
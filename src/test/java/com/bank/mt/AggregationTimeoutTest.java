@@ -4,6 +4,8 @@ import com.bank.mt.domain.*;
 import com.bank.mt.repository.MtAggregationRepository;
 import com.bank.mt.repository.MtMessageOdsRepository;
 import com.bank.mt.scheduler.AggregationExpiryScheduler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -26,6 +28,9 @@ class AggregationTimeoutTest {
     @Autowired
     private AggregationExpiryScheduler scheduler;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void expiredAggregation_isRejectedAndOdsMarkedFailed() {
         // Create an ODS message
@@ -70,4 +75,71 @@ class AggregationTimeoutTest {
         assertNotNull(updatedOds.getErrorReason());
         assertTrue(updatedOds.getErrorReason().contains("timeout"));
     }
+
+    @Test
+    void trackedAggregation_isRejectedByTimingWheel() throws InterruptedException {
+        MtAggregation agg = new MtAggregation();
+        agg.setStatementNumber("WHEEL_TEST");
+        agg.setAccountNumber("WHEEL_ACCT");
+        agg.setMessageType("MT940");
+        agg.setTotalPages(2);
+        agg.setReceivedPages(1);
+        agg.setStatus(AggregationStatus.IN_PROGRESS);
+        agg = aggRepo.save(agg);
+
+        // Deadline already passed: fires on the next wheel tick, no table scan involved
+        scheduler.track(agg.getId(), LocalDateTime.now().minusHours(2));
+        for (int i = 0; i < 30 && aggRepo.findById(agg.getId()).orElseThrow().getStatus()
+                == AggregationStatus.IN_PROGRESS; i++) {
+            Thread.sleep(100);
+            scheduler.fireDueExpiries();
+        }
+
+        assertEquals(AggregationStatus.REJECTED, aggRepo.findById(agg.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void bulkExpiry_rejectsEveryGroupAndOnlyFailsWaitingPages() {
+        DistributionSummary odsPerChunk = meterRegistry.summary("mt.aggregation.expiry.chunk.ods");
+        double odsBefore = odsPerChunk.totalAmount();
+
+        MtMessageOds alreadyDone = null;
+        for (int g = 0; g < 3; g++) {
+            MtAggregation agg = new MtAggregation();
+            agg.setStatementNumber("BULK_" + g);
+            agg.setAccountNumber("BULK_ACCT");
+            agg.setMessageType("MT940");
+            agg.setTotalPages(3);
+            agg.setReceivedPages(2);
+            agg.setStatus(AggregationStatus.IN_PROGRESS);
+            agg = aggRepo.save(agg);
+            agg.setCreatedAt(LocalDateTime.now().minusHours(2));
+            for (int p = 1; p <= 2; p++) {
+                MtMessageOds ods = new MtMessageOds();
+                ods.setRawMessage("bulk page");
+                ods.setStatus(g == 0 && p == 1 ? OdsStatus.COMPLETED : OdsStatus.PROCESSING);
+                ods = odsRepo.save(ods);
+                if (ods.getStatus() == OdsStatus.COMPLETED) {
+                    alreadyDone = ods;
+                }
+                MtAggregationPage page = new MtAggregationPage();
+                page.setPageNumber(p);
+                page.setRawMessage("bulk page");
+                page.setChecksum("bulk-" + g + "-" + p);
+                page.setOdsMessageId(ods.getId());
+                agg.addPage(page);
+            }
+            aggRepo.save(agg);
+        }
+
+        scheduler.expireStaleAggregations();
+
+        for (int g = 0; g < 3; g++) {
+            assertEquals(AggregationStatus.REJECTED, aggRepo
+                    .findByStatementNumberAndAccountNumberAndMessageTypeAndTransactionReference(
+                            "BULK_" + g, "BULK_ACCT", "MT940", "").orElseThrow().getStatus());
+        }
+        assertEquals(OdsStatus.COMPLETED, odsRepo.findById(alreadyDone.getId()).orElseThrow().getStatus());
+        assertEquals(5.0, odsPerChunk.totalAmount() - odsBefore);
+    }
 }
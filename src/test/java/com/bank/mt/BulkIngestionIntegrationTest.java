@@ -0,0 +1,97 @@
+package com.bank.mt;
+
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.ingestion.BulkIngestionService;
+import com.bank.mt.ingestion.BulkIngestionService.Result;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "mt.ingestion.bulk.batch-size=2",
+        "mt.validation.balance.mode=REJECT"
+})
+@ActiveProfiles("test")
+class BulkIngestionIntegrationTest {
+
+    @Autowired private BulkIngestionService bulkIngestion;
+    @Autowired private MtMessageOdsRepository odsRepository;
+    @Autowired private ObjectMapper objectMapper;
+
+    @Test
+    void ndjsonBodyStreamsOneResultPerLine() throws Exception {
+        String body = String.join("\n",
+                line(statement("BULKREF01", "00301/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,")),
+                line(statement("BULKREF02", "00302/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR200,")),
+                "{\"other\":\"field\"}",
+                line(statement("BULKREF03", "00303/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,")));
+        List<Result> results = new ArrayList<>();
+
+        long read = bulkIngestion.ingest(stream(body.getBytes(StandardCharsets.UTF_8)),
+                BulkIngestionService.Format.NDJSON, results::add);
+
+        assertEquals(4, read);
+        results.sort(Comparator.comparingLong(Result::seq));
+        assertEquals(List.of("COMPLETED", "FAILED", "REJECTED", "COMPLETED"),
+                results.stream().map(Result::status).toList());
+        assertEquals(OdsStatus.COMPLETED, odsRepository.findById(results.get(0).odsId()).orElseThrow().getStatus());
+        assertEquals(OdsStatus.FAILED, odsRepository.findById(results.get(1).odsId()).orElseThrow().getStatus());
+        assertNull(results.get(2).odsId());
+    }
+
+    @Test
+    void lengthPrefixedBodyStopsAtATruncatedMessage() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] message = statement("BULKREF04", "00304/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,")
+                .getBytes(StandardCharsets.UTF_8);
+        out.writeInt(message.length);
+        out.write(message);
+        out.writeInt(message.length);
+        out.write(message, 0, 10);
+        List<Result> results = new ArrayList<>();
+
+        long read = bulkIngestion.ingest(stream(bytes.toByteArray()),
+                BulkIngestionService.Format.LENGTH_PREFIXED, results::add);
+
+        assertEquals(2, read);
+        results.sort(Comparator.comparingLong(Result::seq));
+        assertEquals("COMPLETED", results.get(0).status());
+        assertEquals("REJECTED", results.get(1).status());
+        assertTrue(results.get(1).error().startsWith("Unreadable body"));
+    }
+
+    private String line(String raw) throws Exception {
+        return objectMapper.writeValueAsString(Map.of("rawMessage", raw));
+    }
+
+    private static ByteArrayInputStream stream(byte[] bytes) {
+        return new ByteArrayInputStream(bytes);
+    }
+
+    private static String statement(String ref, String page, String opening, String closing, String movement) {
+        return """
+                {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:%s
+                :25:123456789
+                :28C:%s
+                %s
+                :61:2101010101%s
+                %s
+                -}""".formatted(ref, page, opening, movement, closing);
+    }
+}
@@ -0,0 +1,91 @@
+package com.bank.mt;
+
+import com.bank.mt.delivery.MockDeliveryAdapter;
+import com.bank.mt.domain.DeliveryRecord;
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.ingestion.MappedFileIngestionStrategy;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import com.bank.mt.routing.RoutingService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "mt.ingestion.file.enabled=true",
+        "mt.ingestion.file.poll-interval-ms=999999999",
+        "mt.ingestion.file.map-window-bytes=256",
+        "mt.ingestion.lanes.count=2"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class FileIngestionIntegrationTest {
+
+    @Autowired private MappedFileIngestionStrategy fileIngestion;
+    @Autowired private MockDeliveryAdapter mockAdapter;
+    @Autowired private RoutingService routingService;
+    @Autowired private MtMessageOdsRepository odsRepository;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rjeFile_splitsAcrossMapWindowsAndDeliversEveryStatement() throws Exception {
+        mockAdapter.clear();
+        routingService.refreshCache();
+
+        // Single-page statement, then a two-page statement, '$'-delimited as in RJE files;
+        // anything between a "-}" and the next message is not part of either
+        String file = """
+                {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:FILEREF01
+                :25:123456789
+                :28C:00101/001
+                :60F:C210101EUR1000,
+                :61:2101010101DR100,
+                :62F:C210101EUR900,
+                -}END OF BATCH 1
+                ${1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:FILEREF02
+                :25:123456789
+                :28C:00102/001
+                :60F:C210201EUR5000,
+                :61:2102010201DR200,
+                :62M:C210201EUR4800,
+                -}
+                ${1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:FILEREF02
+                :25:123456789
+                :28C:00102/002
+                :60M:C210201EUR4800,
+                :61:2102010201CR1000,
+                :62F:C210201EUR5800,
+                -}
+                """;
+        Path path = tempDir.resolve("eod.rje");
+        Files.writeString(path, file, StandardCharsets.US_ASCII);
+
+        MappedFileIngestionStrategy.FileIngestionReport report = fileIngestion.ingest(path);
+
+        assertEquals(3, report.messages());
+        List<String> refs = mockAdapter.getDeliveries().stream()
+                .filter(d -> "RECON.INTELLIMATCH.IN".equals(d.getDestination()))
+                .map(DeliveryRecord::getTransactionReference)
+                .distinct()
+                .toList();
+        assertEquals(List.of("FILEREF01", "FILEREF02"), refs);
+        MtMessageOds first = odsRepository.findAll().stream()
+                .filter(o -> o.getRawMessage().contains(":20:FILEREF01"))
+                .findFirst().orElseThrow();
+        assertTrue(first.getRawMessage().endsWith("-}"));
+    }
+}
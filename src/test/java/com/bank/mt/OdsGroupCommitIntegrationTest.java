@@ -0,0 +1,97 @@
+package com.bank.mt;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.ingestion.OdsWriteBatcher;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "mt.persistence.ods-batch.enabled=true",
+        "mt.persistence.ods-batch.max-size=8",
+        "mt.persistence.ods-batch.window-ms=5"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class OdsGroupCommitIntegrationTest {
+
+    @Autowired private OdsWriteBatcher odsWriteBatcher;
+    @Autowired private MtMessageOdsRepository odsRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrentInsertsShareBatchesAndGetDistinctIds() {
+        DistributionSummary batches = meterRegistry.get("mt.persistence.ods.batch.size").summary();
+        double writtenBefore = batches.totalAmount();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<MtMessageOds>> inserts = IntStream.range(0, 200)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> odsWriteBatcher.insert(ods("BATCH" + i)), callers))
+                    .toList();
+            Set<Long> ids = new HashSet<>();
+            inserts.forEach(f -> ids.add(f.join().getId()));
+
+            assertEquals(200, ids.size());
+            assertEquals(200, odsRepository.findAllById(ids).size());
+            assertEquals(200.0, batches.totalAmount() - writtenBefore);
+            assertTrue(batches.max() <= 8.0);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void outcomesOfConcurrentMessagesCommitTogether() {
+        List<Long> completed = List.of(odsWriteBatcher.insert(ods("DONE1")).getId(),
+                odsWriteBatcher.insert(ods("DONE2")).getId());
+        Long failed = odsWriteBatcher.insert(ods("BROKEN")).getId();
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> odsWriteBatcher.complete(completed)),
+                CompletableFuture.runAsync(() -> odsWriteBatcher.fail(List.of(failed), "Balance mismatch"))).join();
+
+        assertTrue(odsRepository.findAllById(completed).stream().allMatch(o -> o.getStatus() == OdsStatus.COMPLETED));
+        MtMessageOds broken = odsRepository.findById(failed).orElseThrow();
+        assertEquals(OdsStatus.FAILED, broken.getStatus());
+        assertEquals("Balance mismatch", broken.getErrorReason());
+        assertEquals(1, broken.getRetryCount());
+    }
+
+    @Test
+    void rowsInsertedWithoutAnIdDoNotCollideWithPooledIds() {
+        Long pooled = odsWriteBatcher.insert(ods("POOLED")).getId();
+        jdbcTemplate.update("INSERT INTO mt_message_ods (raw_message, status) VALUES ('EXTERNAL', 'NEW')");
+        Long external = jdbcTemplate.queryForObject(
+                "SELECT id FROM mt_message_ods WHERE raw_message = 'EXTERNAL'", Long.class);
+        Long next = odsWriteBatcher.insert(ods("POOLED2")).getId();
+
+        assertNotEquals(pooled, external);
+        assertNotEquals(next, external);
+        assertTrue(odsRepository.findById(next).isPresent());
+    }
+
+    private static MtMessageOds ods(String raw) {
+        MtMessageOds ods = new MtMessageOds();
+        ods.setRawMessage(raw);
+        ods.setStatus(OdsStatus.PROCESSING);
+        return ods;
+    }
+}
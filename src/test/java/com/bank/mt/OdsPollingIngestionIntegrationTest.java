@@ -0,0 +1,119 @@
+package com.bank.mt;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.ingestion.OdsPollingIngestionStrategy;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "mt.ingestion.polling.enabled=true",
+        "mt.ingestion.polling.workers=2",
+        "mt.ingestion.polling.batch-size=2",
+        "mt.ingestion.polling.poll-interval-ms=20",
+        "mt.ingestion.polling.max-backoff-ms=200"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class OdsPollingIngestionIntegrationTest {
+
+    @Autowired private MtMessageOdsRepository odsRepository;
+    @Autowired private MeterRegistry meterRegistry;
+    @Autowired private OdsPollingIngestionStrategy polling;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void newRowsAreClaimedOnceAndProcessed() throws Exception {
+        List<Long> ids = Stream.of(
+                        statement("POLLREF01", "00201/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,"),
+                        statement("POLLREF02", "00202/001", ":60F:C210201EUR5000,", ":62M:C210201EUR4800,", "DR200,"),
+                        statement("POLLREF02", "00202/002", ":60M:C210201EUR4800,", ":62F:C210201EUR5800,", "CR1000,"))
+                .map(raw -> {
+                    MtMessageOds ods = new MtMessageOds();
+                    ods.setRawMessage(raw);
+                    ods.setStatus(OdsStatus.NEW);
+                    return odsRepository.save(ods).getId();
+                })
+                .toList();
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (odsRepository.findAllById(ids).stream().anyMatch(o -> o.getStatus() != OdsStatus.COMPLETED)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertTrue(odsRepository.findAllById(ids).stream().allMatch(o -> o.getStatus() == OdsStatus.COMPLETED));
+        assertTrue(meterRegistry.counter("mt.ingestion.polling.messages").count() >= ids.size());
+        assertEquals(0.0, meterRegistry.counter("mt.ingestion.polling.claim.conflicts").count());
+        assertTrue(meterRegistry.get("mt.ingestion.polling.batch.fill").summary().max() <= 1.0);
+    }
+
+    @Test
+    void claimsLeftByAStoppedNodeAreReclaimedAndProcessed() throws Exception {
+        MtMessageOds ods = new MtMessageOds();
+        ods.setRawMessage(statement("POLLREF03", "00203/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,"));
+        ods.setStatus(OdsStatus.PROCESSING);
+        Long id = odsRepository.save(ods).getId();
+        // Claimed an hour ago by a node that never finished it
+        jdbcTemplate.update("UPDATE mt_message_ods SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusHours(1), id);
+
+        assertTrue(polling.reclaimStaleClaims() >= 1);
+
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (odsRepository.findById(id).orElseThrow().getStatus() != OdsStatus.COMPLETED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        MtMessageOds reclaimed = odsRepository.findById(id).orElseThrow();
+        assertEquals(OdsStatus.COMPLETED, reclaimed.getStatus());
+        assertEquals(1, reclaimed.getRetryCount());
+        assertTrue(meterRegistry.counter("mt.ingestion.polling.reclaimed").count() >= 1);
+    }
+
+    @Test
+    void exhaustedClaimIsOnlyFailedIfNotTouchedSinceTheCutoff() {
+        MtMessageOds ods = new MtMessageOds();
+        ods.setRawMessage(statement("POLLREF04", "00204/001", ":60F:C210101EUR1000,", ":62F:C210101EUR900,", "DR100,"));
+        ods.setStatus(OdsStatus.PROCESSING);
+        ods.setRetryCount(3);
+        Long id = odsRepository.save(ods).getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // The owning node touched the row after the scan: the fail must not apply
+        assertEquals(0, (int) tx.execute(s -> odsRepository.failStale(List.of(id), LocalDateTime.now().minusHours(1), "stale")));
+        assertEquals(OdsStatus.PROCESSING, odsRepository.findById(id).orElseThrow().getStatus());
+
+        jdbcTemplate.update("UPDATE mt_message_ods SET updated_at = ? WHERE id = ?",
+                LocalDateTime.now().minusHours(2), id);
+        assertEquals(1, (int) tx.execute(s -> odsRepository.failStale(List.of(id), LocalDateTime.now().minusHours(1), "stale")));
+        assertEquals(OdsStatus.FAILED, odsRepository.findById(id).orElseThrow().getStatus());
+    }
+
+    private static String statement(String ref, String page, String opening, String closing, String movement) {
+        return """
+                {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:%s
+                :25:123456789
+                :28C:%s
+                %s
+                :61:2101010101%s
+                %s
+                -}""".formatted(ref, page, opening, movement, closing);
+    }
+}
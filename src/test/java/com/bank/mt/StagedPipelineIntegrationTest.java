@@ -0,0 +1,70 @@
+package com.bank.mt;
+
+import com.bank.mt.delivery.MockDeliveryAdapter;
+import com.bank.mt.domain.DeliveryRecord;
+import com.bank.mt.ingestion.MqIngestionStrategy;
+import com.bank.mt.routing.RoutingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "mt.ingestion.pipeline.mode=STAGED")
+@ActiveProfiles("test")
+@DirtiesContext
+class StagedPipelineIntegrationTest {
+
+    @Autowired private MqIngestionStrategy ingestion;
+    @Autowired private MockDeliveryAdapter mockAdapter;
+    @Autowired private RoutingService routingService;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void multiPageStatementFlowsThroughEveryStage() throws Exception {
+        mockAdapter.clear();
+        routingService.refreshCache();
+
+        ingestion.onMessage("""
+                {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:STAGEDREF
+                :25:123456789
+                :28C:00301/001
+                :60F:C210201EUR5000,
+                :61:2102010201DR200,
+                :62M:C210201EUR4800,
+                -}""");
+        ingestion.onMessage("""
+                {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+                :20:STAGEDREF
+                :25:123456789
+                :28C:00301/002
+                :60M:C210201EUR4800,
+                :61:2102010201CR1000,
+                :62F:C210201EUR5800,
+                -}""");
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (delivered().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(List.of("STAGEDREF"), delivered());
+        for (String stage : List.of("ingestion", "aggregation", "delivery")) {
+            assertTrue(meterRegistry.get("mt.pipeline.stage.wait").tag("stage", stage).timer().count() > 0, stage);
+        }
+    }
+
+    private List<String> delivered() {
+        return mockAdapter.getDeliveries().stream()
+                .filter(d -> "RECON.INTELLIMATCH.IN".equals(d.getDestination()))
+                .map(DeliveryRecord::getTransactionReference)
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.AggregationStatus;
+import com.bank.mt.domain.MtAggregation;
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtAggregationPageRepository;
+import com.bank.mt.repository.MtAggregationRepository;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AggregationJournalTest {
+
+    private final MtAggregationRepository aggregationRepo = mock(MtAggregationRepository.class);
+    private final MtMessageOdsRepository odsRepo = mock(MtMessageOdsRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AggregationJournal journal = new AggregationJournal(aggregationRepo,
+            mock(MtAggregationPageRepository.class), odsRepo, mock(PlatformTransactionManager.class),
+            meterRegistry, 16, 100, 10, 50);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        journal.shutdown();
+    }
+
+    @Test
+    void failingEntryIsRetriedUntilWrittenAndReportsDownMeanwhile() throws Exception {
+        CountDownLatch failing = new CountDownLatch(3);
+        CountDownLatch recovered = new CountDownLatch(1);
+        when(aggregationRepo.save(any())).thenAnswer(inv -> {
+            failing.countDown();
+            if (recovered.getCount() > 0) {
+                throw new QueryTimeoutException("database unavailable");
+            }
+            MtAggregation saved = inv.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+        AggregationKey key = new AggregationKey("00042", "123456789", "MT940", "REF");
+
+        journal.statusChanged(key, 2, 1, new byte[]{1}, AggregationStatus.REJECTED, List.of(11L), "timeout");
+
+        assertTrue(failing.await(5, TimeUnit.SECONDS));
+        assertEquals(Status.DOWN, journal.health().getStatus());
+        assertFalse(journal.flush(50, TimeUnit.MILLISECONDS));
+
+        recovered.countDown();
+        assertTrue(journal.flush(5, TimeUnit.SECONDS));
+        assertEquals(Status.UP, journal.health().getStatus());
+        verify(aggregationRepo).updateProgress(7L, 2, 1, new byte[]{1}, AggregationStatus.REJECTED);
+        verify(odsRepo).failBatch(List.of(11L), OdsStatus.PROCESSING, "timeout");
+        assertEquals(1.0, meterRegistry.counter("mt.aggregation.journal.written").count());
+        assertTrue(meterRegistry.counter("mt.aggregation.journal.failed").count() >= 3);
+    }
+
+    @Test
+    void constraintViolationDropsTheEntryAndFailsItsMessageInsteadOfRetrying() throws Exception {
+        when(aggregationRepo.save(any())).thenThrow(new DataIntegrityViolationException("idx_agg_stmt_acct_ref"));
+        AggregationKey key = new AggregationKey("00043", "123456789", "MT940", "REF");
+        MtAggregationPage page = new MtAggregationPage();
+        page.setPageNumber(1);
+        page.setOdsMessageId(21L);
+
+        journal.pageAdded(key, page, 2, 1, new byte[]{1}, AggregationStatus.IN_PROGRESS);
+
+        assertTrue(journal.flush(5, TimeUnit.SECONDS));
+        assertEquals(Status.UP, journal.health().getStatus());
+        verify(aggregationRepo, times(2)).save(any()); // the batch, then the entry alone
+        verify(odsRepo).failBatch(eq(List.of(21L)), eq(OdsStatus.PROCESSING), anyString());
+        assertEquals(0.0, meterRegistry.counter("mt.aggregation.journal.written").count());
+    }
+}
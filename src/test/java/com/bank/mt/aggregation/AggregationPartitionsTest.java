@@ -0,0 +1,153 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.AggregationResult;
+import com.bank.mt.domain.InFlightAggregation;
+import com.bank.mt.domain.MtStatement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregationPartitionsTest {
+
+    @Test
+    void pagesOfOneGroupNeverRunConcurrently() throws Exception {
+        Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        AggregationEngine engine = engine((statement, odsId) -> {
+            AtomicInteger inGroup = active.computeIfAbsent(statement.getStatementNumber(), k -> new AtomicInteger());
+            if (inGroup.incrementAndGet() > 1) {
+                overlaps.incrementAndGet();
+            }
+            Thread.onSpinWait();
+            inGroup.decrementAndGet();
+            processed.incrementAndGet();
+            return AggregationResult.pending();
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            AggregationPartitions partitions = new AggregationPartitions(engine, pool, new SimpleMeterRegistry(), 3);
+            List<Future<AggregationResult>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                MtStatement page = page("STMT" + (i % 5), i % 7 + 1);
+                results.add(callers.submit(() -> partitions.aggregate(page, null)));
+            }
+            for (Future<AggregationResult> result : results) {
+                assertFalse(result.get(10, TimeUnit.SECONDS).isReadyForRouting());
+            }
+        } finally {
+            callers.shutdown();
+            pool.shutdown();
+        }
+
+        assertEquals(400, processed.get());
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test
+    void engineFailureIsRethrownToCaller() {
+        AggregationEngine engine = engine((statement, odsId) -> {
+            throw new IllegalStateException("boom");
+        });
+        AggregationPartitions partitions = new AggregationPartitions(engine, Runnable::run, new SimpleMeterRegistry(), 2);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> partitions.aggregate(page("STMT", 2), 1L));
+        assertEquals("boom", e.getMessage());
+    }
+
+    @Test
+    void saturatedSharedExecutorMakesCallersWaitInsteadOfAggregatingOnTheirThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AggregationEngine engine = engine((statement, odsId) -> {
+            threads.add(Thread.currentThread().getName());
+            return AggregationResult.pending();
+        });
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(1);
+        pool.setQueueCapacity(1);
+        pool.setThreadNamePrefix("agg-");
+        pool.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Another user of the shared executor fills it
+            pool.execute(() -> awaitQuietly(release));
+            pool.execute(() -> awaitQuietly(release));
+            AggregationPartitions partitions = new AggregationPartitions(engine, pool, new SimpleMeterRegistry(), 8);
+
+            CompletableFuture<AggregationResult> first = CompletableFuture.supplyAsync(
+                    () -> partitions.submit(page("STMT1", 1), null).join());
+            Thread.sleep(100);
+            assertFalse(first.isDone());
+
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 20; i++) {
+                partitions.submit(page("STMT" + i, 2), null).get(10, TimeUnit.SECONDS);
+            }
+            assertTrue(threads.stream().allMatch(name -> name.startsWith("agg-")), threads::toString);
+        } finally {
+            release.countDown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void pagesFailOnceTheExecutorIsShutDown() {
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.initialize();
+        pool.shutdown();
+        AggregationPartitions partitions = new AggregationPartitions(
+                engine((statement, odsId) -> AggregationResult.pending()), pool, new SimpleMeterRegistry(), 2);
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> partitions.submit(page("STMT", 2), 1L).join());
+        assertInstanceOf(RejectedExecutionException.class, e.getCause());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static AggregationEngine engine(BiFunction<MtStatement, Long, AggregationResult> aggregate) {
+        return new AggregationEngine() {
+            @Override
+            public AggregationResult aggregate(MtStatement statement, Long odsMessageId) {
+                return aggregate.apply(statement, odsMessageId);
+            }
+
+            @Override
+            public List<InFlightAggregation> inFlight() {
+                return List.of();
+            }
+        };
+    }
+
+    private static MtStatement page(String statementNumber, int pageNumber) {
+        MtStatement statement = new MtStatement();
+        statement.setMessageType("MT940");
+        statement.setAccountNumber("123456789");
+        statement.setStatementNumber(statementNumber);
+        statement.setTransactionReference("REF");
+        statement.setPageNumber(pageNumber);
+        statement.setTotalPages(8);
+        return statement;
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.parsing.MtParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CombinedStatementBuilderTest {
+
+    private static final String PAGE_1 = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF
+            :25:123456789
+            :28C:00005/001
+            :60F:C210201EUR5000,
+            :61:2102010201DR200,
+            :86:RENT
+            FEBRUARY
+            :62M:C210201EUR4800,
+            -}""";
+
+    private static final String PAGE_2 = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF
+            :25:123456789
+            :28C:00005/002
+            :60M:C210201EUR4800,
+            :61:2102010201CR1000,
+            :86:SALARY
+            :62F:C210201EUR5800,
+            :64:C210201EUR5800,
+            -}""";
+
+    @Test
+    void mergesPagesIntoOneStatement() {
+        MtStatement last = new MtParser().parse(PAGE_2);
+
+        String combined = CombinedStatementBuilder.buildRawMessage(List.of(page(1, PAGE_1), page(2, PAGE_2)), last);
+
+        assertEquals("""
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF
+                :25:123456789
+                :28C:00005/001
+                :60F:C210201EUR5000,
+                :61:2102010201DR200,
+                :86:RENT
+                FEBRUARY
+                :61:2102010201CR1000,
+                :86:SALARY
+                :62F:C210201EUR5800,
+                :64:C210201EUR5800,
+                -}""", combined);
+    }
+
+    @Test
+    void normalisesCrLfLineEndings() {
+        String crlfPage1 = PAGE_1.replace(":86:RENT\nFEBRUARY", ":86:RENT").replace("\n", "\r\n");
+        MtStatement last = new MtParser().parse(PAGE_2);
+
+        String combined = CombinedStatementBuilder.buildRawMessage(List.of(page(1, crlfPage1), page(2, PAGE_2)), last);
+
+        assertFalse(combined.contains("\r"));
+        assertTrue(combined.contains(":60F:C210201EUR5000,\n:61:2102010201DR200,\n:86:RENT\n:61:"));
+    }
+
+    private static MtAggregationPage page(int number, String raw) {
+        MtAggregationPage page = new MtAggregationPage();
+        page.setPageNumber(number);
+        page.setRawMessage(raw);
+        return page;
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.parsing.PageChecksum;
+import com.bank.mt.repository.MtAggregationPageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DuplicatePageFilterTest {
+
+    private static final String PAGE_1 = PageChecksum.of("page one");
+    private static final String PAGE_2 = PageChecksum.of("page two");
+
+    private final MtAggregationPageRepository pageRepo = mock(MtAggregationPageRepository.class);
+    private final DuplicatePageFilter filter = new DuplicatePageFilter(pageRepo, new SimpleMeterRegistry());
+
+    @Test
+    void newChecksumSkipsTheDatabase() {
+        filter.record(1L, PAGE_1);
+
+        assertFalse(filter.isDuplicate(1L, PAGE_2));
+        verify(pageRepo, never()).existsByAggregationIdAndChecksum(anyLong(), anyString());
+    }
+
+    @Test
+    void possibleHitIsConfirmedByTheDatabase() {
+        filter.record(1L, PAGE_1);
+        when(pageRepo.existsByAggregationIdAndChecksum(1L, PAGE_1)).thenReturn(true);
+
+        assertTrue(filter.isDuplicate(1L, PAGE_1));
+        verify(pageRepo).existsByAggregationIdAndChecksum(1L, PAGE_1);
+    }
+
+    @Test
+    void unknownAggregationIsHydratedFromItsPages() {
+        when(pageRepo.findChecksumsByAggregationId(7L)).thenReturn(List.of(PAGE_1));
+        when(pageRepo.existsByAggregationIdAndChecksum(7L, PAGE_1)).thenReturn(true);
+
+        assertTrue(filter.isDuplicate(7L, PAGE_1));
+        assertFalse(filter.isDuplicate(7L, PAGE_2));
+        verify(pageRepo, times(1)).findChecksumsByAggregationId(7L);
+
+        filter.forget(7L);
+        filter.isDuplicate(7L, PAGE_2);
+        verify(pageRepo, times(2)).findChecksumsByAggregationId(7L);
+    }
+
+    @Test
+    void longHashSetGrowsAndHandlesZero() {
+        LongHashSet set = new LongHashSet(1);
+        for (long v = -500; v <= 500; v++) {
+            assertTrue(set.add(v * 0x1000_0001L));
+        }
+        assertFalse(set.add(0L));
+        assertEquals(1001, set.size());
+        assertTrue(set.contains(-500 * 0x1000_0001L));
+        assertFalse(set.contains(3L));
+    }
+}
@@ -0,0 +1,59 @@
+package com.bank.mt.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private static final long T0 = 1_000_000L;
+
+    @Test
+    void firesWithinOneTickOfTheDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, T0);
+        wheel.schedule("a", T0 + 250);
+        wheel.schedule("b", T0 + 520);
+
+        assertTrue(wheel.advance(T0 + 200).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(T0 + 300));
+        assertTrue(wheel.advance(T0 + 500).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(T0 + 600));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledAndRescheduledKeysDoNotFireEarly() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, T0);
+        wheel.schedule("cancelled", T0 + 150);
+        wheel.schedule("moved", T0 + 150);
+        wheel.cancel("cancelled");
+        wheel.schedule("moved", T0 + 450);
+
+        assertTrue(wheel.advance(T0 + 300).isEmpty());
+        assertEquals(List.of("moved"), wheel.advance(T0 + 500));
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 4, T0);
+        wheel.schedule("far", T0 + 1_050); // same slot as T0 + 250, two revolutions later
+
+        assertTrue(wheel.advance(T0 + 300).isEmpty());
+        assertTrue(wheel.advance(T0 + 700).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(T0 + 1_100));
+    }
+
+    @Test
+    void overdueAndStalledEntriesFireOnTheNextAdvance() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 4, T0);
+        wheel.advance(T0 + 500);
+        wheel.schedule("overdue", T0);
+        wheel.schedule("later", T0 + 900);
+
+        // Stalled for more than one revolution: every slot is visited once
+        List<String> fired = wheel.advance(T0 + 5_000);
+        assertTrue(fired.containsAll(List.of("overdue", "later")));
+    }
+}
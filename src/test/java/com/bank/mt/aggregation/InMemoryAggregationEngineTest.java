@@ -0,0 +1,118 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.delivery.MockDeliveryAdapter;
+import com.bank.mt.domain.AggregationStatus;
+import com.bank.mt.domain.MtAggregation;
+import com.bank.mt.ingestion.MqIngestionStrategy;
+import com.bank.mt.repository.MtAggregationRepository;
+import com.bank.mt.routing.RoutingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "mt.aggregation.mode=IN_MEMORY")
+@ActiveProfiles("test")
+@DirtiesContext
+class InMemoryAggregationEngineTest {
+
+    private static final String PAGE_1 = """
+            {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+            :20:MEMREF01
+            :25:123456789
+            :28C:00077/001
+            :60F:C210201EUR5000,
+            :61:2102010201DR200,
+            :62M:C210201EUR4800,
+            -}""";
+
+    private static final String PAGE_2 = """
+            {1:F01HSBCGB2LAXXX0000000000}{2:I940CITIUS33XXXXN}{4:
+            :20:MEMREF01
+            :25:123456789
+            :28C:00077/002
+            :60M:C210201EUR4800,
+            :61:2102010201CR1000,
+            :62F:C210201EUR5800,
+            -}""";
+
+    @Autowired private MqIngestionStrategy ingestion;
+    @Autowired private MockDeliveryAdapter mockAdapter;
+    @Autowired private RoutingService routingService;
+    @Autowired private InMemoryAggregationEngine engine;
+    @Autowired private AggregationJournal journal;
+    @Autowired private MtAggregationRepository aggRepo;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @Test
+    void journalledPagesSurviveRebuildAndCompleteTheGroup() throws InterruptedException {
+        routingService.refreshCache();
+        mockAdapter.clear();
+
+        ingestion.onMessage(PAGE_1);
+        assertTrue(journal.flush(10, TimeUnit.SECONDS));
+        MtAggregation open = findGroup();
+        assertEquals(AggregationStatus.IN_PROGRESS, open.getStatus());
+        assertEquals(1, open.getReceivedPages());
+
+        // Simulated restart: state comes back from the journalled tables only
+        engine.rebuild();
+
+        ingestion.onMessage(PAGE_2);
+        assertTrue(mockAdapter.getDeliveries().stream()
+                .anyMatch(d -> d.getRawMessage().contains("DR200,") && d.getRawMessage().contains("CR1000,")));
+
+        assertTrue(journal.flush(10, TimeUnit.SECONDS));
+        MtAggregation completed = findGroup();
+        assertEquals(AggregationStatus.COMPLETED, completed.getStatus());
+        assertEquals(2, completed.getReceivedPages());
+        assertEquals(2, completed.getTotalPages());
+
+        // Late resend hits the tombstone, even after another rebuild
+        engine.rebuild();
+        int delivered = mockAdapter.getDeliveries().size();
+        ingestion.onMessage(PAGE_2);
+        assertEquals(delivered, mockAdapter.getDeliveries().size());
+    }
+
+    @Test
+    void lateResendAfterTombstoneEvictionIsRejectedFromTheTables() throws InterruptedException {
+        routingService.refreshCache();
+        String page1 = PAGE_1.replace("MEMREF01", "MEMREF02");
+        String page2 = PAGE_2.replace("MEMREF01", "MEMREF02");
+        ingestion.onMessage(page1);
+        ingestion.onMessage(page2);
+        assertTrue(journal.flush(10, TimeUnit.SECONDS));
+
+        // Evict the tombstone as the sweep does once the window has passed
+        ReflectionTestUtils.setField(engine, "expiryMinutes", -1);
+        try {
+            engine.expireStaleAggregations();
+        } finally {
+            ReflectionTestUtils.setField(engine, "expiryMinutes", 60);
+        }
+
+        int delivered = mockAdapter.getDeliveries().size();
+        double failed = meterRegistry.counter("mt.aggregation.journal.failed").count();
+        ingestion.onMessage(page2);
+        assertTrue(journal.flush(10, TimeUnit.SECONDS));
+        assertEquals(delivered, mockAdapter.getDeliveries().size());
+        assertEquals(failed, meterRegistry.counter("mt.aggregation.journal.failed").count());
+        MtAggregation completed = aggRepo.findByStatementNumberAndAccountNumberAndMessageTypeAndTransactionReference(
+                "00077", "123456789", "MT940", "MEMREF02").orElseThrow();
+        assertEquals(AggregationStatus.COMPLETED, completed.getStatus());
+        assertEquals(2, completed.getReceivedPages());
+    }
+
+    private MtAggregation findGroup() {
+        return aggRepo.findByStatementNumberAndAccountNumberAndMessageTypeAndTransactionReference(
+                "00077", "123456789", "MT940", "MEMREF01").orElseThrow();
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.mt.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagePresenceTest {
+
+    @Test
+    void completesWhenTheLastGapFillsInAnyOrder() {
+        PagePresence presence = new PagePresence();
+        assertTrue(presence.add(3));
+        assertTrue(presence.add(1));
+        assertFalse(presence.isComplete(3));
+        assertEquals("2", presence.missingRanges(3));
+
+        assertTrue(presence.add(2));
+        assertTrue(presence.isComplete(3));
+        assertEquals("", presence.missingRanges(3));
+    }
+
+    @Test
+    void repeatedPageNumberNeverCountsTowardsCompletion() {
+        PagePresence presence = new PagePresence();
+        assertTrue(presence.add(1));
+        assertFalse(presence.add(1));
+        assertFalse(presence.add(0));
+        assertFalse(presence.add(2_000_000_000));
+        assertEquals(1, presence.count());
+        assertFalse(presence.isComplete(2));
+    }
+
+    @Test
+    void reportsRangesAndOpenEndWhileTotalUnknown() {
+        PagePresence presence = PagePresence.of(List.of(1, 5, 6, 9));
+        assertEquals("2-4,7-8,10+", presence.missingRanges(0));
+        assertEquals("2-4,7-8,10-12", presence.missingRanges(12));
+    }
+
+    @Test
+    void survivesByteRoundTrip() {
+        PagePresence presence = PagePresence.of(List.of(1, 2, 4));
+        PagePresence restored = PagePresence.fromBytes(presence.toBytes());
+        assertTrue(restored.contains(4));
+        assertFalse(restored.contains(3));
+        assertTrue(restored.add(3));
+        assertTrue(restored.isComplete(4));
+        assertTrue(PagePresence.fromBytes(null).add(1));
+    }
+}
@@ -0,0 +1,61 @@
+package com.bank.mt.aggregation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageSpillTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void spillsPastTheBudgetAndReadsBodiesBack(@TempDir Path dir) {
+        PageSpill spill = new PageSpill(meterRegistry, 10, 1 << 16, dir.toString());
+
+        PageSpill.Body resident = spill.store("0123456789");
+        PageSpill.Body spilled = spill.store(":61:2102010201DR200,");
+        PageSpill.Body next = spill.store(":86:RENT");
+
+        assertFalse(resident.isSpilled());
+        assertTrue(spilled.isSpilled());
+        assertEquals("0123456789", spill.read(resident));
+        assertEquals(":86:RENT", spill.read(next));
+        assertEquals(":61:2102010201DR200,", spill.read(spilled));
+        assertEquals(10.0, meterRegistry.get("mt.aggregation.spill.resident.bytes").gauge().value());
+        assertEquals(28.0, meterRegistry.get("mt.aggregation.spill.spilled.bytes").gauge().value());
+
+        spill.release(resident);
+        spill.release(spilled);
+        spill.release(next);
+        assertEquals(0.0, meterRegistry.get("mt.aggregation.spill.resident.bytes").gauge().value());
+        assertEquals(0.0, meterRegistry.get("mt.aggregation.spill.spilled.bytes").gauge().value());
+    }
+
+    @Test
+    void deletesSegmentsOnceRolledOverAndReleased(@TempDir Path dir) throws Exception {
+        PageSpill spill = new PageSpill(meterRegistry, 0, 1 << 16, dir.toString());
+        String body = "x".repeat(40_000);
+
+        PageSpill.Body first = spill.store(body);
+        PageSpill.Body second = spill.store(body); // does not fit: rolls over to a new segment
+        assertEquals(2, segments(dir));
+
+        spill.release(first);
+        assertEquals(1, segments(dir));
+        assertEquals(body, spill.read(second));
+
+        spill.shutdown();
+        assertEquals(0, segments(dir));
+    }
+
+    private static long segments(Path dir) throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
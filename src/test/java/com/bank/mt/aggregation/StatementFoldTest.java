@@ -0,0 +1,101 @@
+package com.bank.mt.aggregation;
+
+import com.bank.mt.domain.MtAggregationPage;
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.parsing.MtParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementFoldTest {
+
+    private static final String PAGE_1 = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF
+            :25:123456789
+            :28C:00005/001
+            :60F:C210201EUR5000,
+            :61:2102010201DR200,
+            :86:RENT
+            :62M:C210201EUR4800,
+            -}""";
+
+    private static final String PAGE_2 = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF
+            :25:123456789
+            :28C:00005/002
+            :60M:C210201EUR4800,
+            :61:2102010201CR1000,
+            :62M:C210201EUR5800,
+            :86:CARRIED FORWARD
+            -}""";
+
+    private static final String PAGE_3 = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF
+            :25:123456789
+            :28C:00005/003
+            :60M:C210201EUR5800,
+            :61:2102010201DR300,
+            :62F:C210201EUR5500,
+            :64:C210201EUR5500,
+            :86:END OF STATEMENT
+            -}""";
+
+    private final MtParser parser = new MtParser();
+
+    @Test
+    void outOfOrderFoldMatchesTheCompletionTimeMerge() {
+        MtStatement last = parser.parse(PAGE_3);
+        String expected = CombinedStatementBuilder.buildRawMessage(
+                List.of(page(1, PAGE_1), page(2, PAGE_2), page(3, PAGE_3)), last);
+
+        StatementFold fold = StatementFold.onHeap();
+        fold.add(3, last.getTagView(), 13L, new StatementBalance(5800, -300, 5500));
+        fold.add(1, parser.parse(PAGE_1).getTagView(), 11L, new StatementBalance(5000, -200, 4800));
+        assertEquals(1, fold.bufferedPages());
+        assertFalse(fold.isComplete(3));
+
+        fold.add(2, parser.parse(PAGE_2).getTagView(), 12L, new StatementBalance(4800, 1000, 5800));
+        assertEquals(0, fold.bufferedPages());
+        assertTrue(fold.isComplete(3));
+
+        assertEquals(expected, fold.finish());
+        assertEquals(new StatementBalance(5000, 500, 5500), fold.balance());
+        assertEquals(List.of(11L, 12L, 13L), fold.odsMessageIds());
+    }
+
+    @Test
+    void fileSpoolProducesTheSameMessageAndDeletesItsFile(@TempDir Path dir) throws Exception {
+        StatementFold heap = StatementFold.onHeap();
+        StatementFold file = StatementFold.inFile(dir);
+        for (StatementFold fold : List.of(heap, file)) {
+            fold.add(1, parser.parse(PAGE_1).getTagView(), 1L, null);
+            fold.add(2, parser.parse(PAGE_2).getTagView(), 2L, null);
+            fold.add(3, parser.parse(PAGE_3).getTagView(), 3L, null);
+        }
+        try (var spooled = Files.list(dir)) {
+            assertEquals(1, spooled.count());
+        }
+
+        assertEquals(heap.finish(), file.finish());
+        assertNull(file.balance());
+        try (var spooled = Files.list(dir)) {
+            assertEquals(0, spooled.count());
+        }
+    }
+
+    private static MtAggregationPage page(int number, String raw) {
+        MtAggregationPage page = new MtAggregationPage();
+        page.setPageNumber(number);
+        page.setRawMessage(raw);
+        return page;
+    }
+}
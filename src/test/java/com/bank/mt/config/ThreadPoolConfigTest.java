@@ -0,0 +1,56 @@
+package com.bank.mt.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadPoolConfigTest {
+
+    @Test
+    void virtualModeFallsBackToPlatformPoolsBeforeJava21() {
+        Executor executor = new ThreadPoolConfig(ThreadPoolConfig.ThreadMode.VIRTUAL).deliveryExecutor(1, 1, 1);
+        try {
+            assertEquals(Runtime.version().feature() < 21, executor instanceof ThreadPoolTaskExecutor);
+        } finally {
+            if (executor instanceof ThreadPoolTaskExecutor pool) {
+                pool.shutdown();
+            } else {
+                ((ExecutorService) executor).shutdown();
+            }
+        }
+    }
+
+    @Test
+    void permitDataSourceHoldsConnectionsBackAtTheLimit() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:permits");
+        PermitDataSource dataSource = new PermitDataSource(h2, 1);
+
+        Connection first = dataSource.getConnection();
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(second.isDone(), "second connection should wait for a permit");
+
+        first.close();
+        first.close(); // a repeated close must not hand out an extra permit
+        try (Connection connection = second.get(5, TimeUnit.SECONDS)) {
+            assertTrue(connection.isValid(1));
+            assertEquals(0, dataSource.availablePermits());
+        }
+        assertEquals(1, dataSource.availablePermits());
+    }
+}
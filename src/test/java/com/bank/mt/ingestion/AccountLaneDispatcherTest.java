@@ -0,0 +1,108 @@
+package com.bank.mt.ingestion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLaneDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AccountLaneDispatcher dispatcher = new AccountLaneDispatcher(meterRegistry, 4, 1024, 1.5);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void keepsEachAccountInOrder() throws Exception {
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(8 * 100);
+        for (int i = 0; i < 100; i++) {
+            for (int a = 0; a < 8; a++) {
+                String account = "ACCT" + a;
+                int seq = i;
+                dispatcher.dispatch(account, () -> {
+                    seen.computeIfAbsent(account, k -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        List<Integer> expected = IntStream.range(0, 100).boxed().toList();
+        seen.values().forEach(order -> assertEquals(expected, order));
+    }
+
+    @Test
+    void rebalanceMovesAHotAccountOnceItsLaneHasDrainedIt() throws Exception {
+        List<String> sameLane = IntStream.range(0, 1000).mapToObj(i -> "ACCT" + i)
+                .filter(a -> dispatcher.hashLane(a) == 0)
+                .limit(2)
+                .toList();
+        String hot = sameLane.get(0);
+        String warm = sameLane.get(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(hot, () -> await(release));
+        for (int i = 0; i < 30; i++) {
+            dispatcher.dispatch(hot, () -> { });
+            if (i % 2 == 0) {
+                dispatcher.dispatch(warm, () -> { });
+            }
+        }
+
+        assertEquals(1, dispatcher.rebalance());
+        assertEquals(4.0, meterRegistry.get("mt.ingestion.lanes.skew").gauge().value());
+        assertEquals(1.0, meterRegistry.counter("mt.ingestion.lanes.moves").count());
+        String moved = dispatcher.lanes().stream()
+                .filter(l -> l.lane() != 0)
+                .flatMap(l -> l.hotAccounts().stream())
+                .findFirst().orElseThrow();
+        assertEquals(warm, moved);
+
+        release.countDown();
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch ran = new CountDownLatch(2);
+        Thread.sleep(200); // let lane 0 drain
+        dispatcher.dispatch(warm, () -> { threads.add(Thread.currentThread().getName()); ran.countDown(); });
+        dispatcher.dispatch(hot, () -> { threads.add(Thread.currentThread().getName()); ran.countDown(); });
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(threads.contains("account-lane-0"));
+        assertEquals(1, threads.stream().filter(t -> !t.equals("account-lane-0")).count());
+    }
+
+    @Test
+    void preScansTheAccountLine() {
+        String raw = """
+                {1:F01HSBCGB2LAXXX0000000000}{2:I942CITIUS33XXXXN}{4:
+                :20:REF1
+                :25:123456789
+                :28C:00001/001
+                -}""";
+
+        assertEquals("123456789", AccountLaneDispatcher.accountOf(raw));
+        assertEquals("123456789", AccountLaneDispatcher.accountOf(ByteBuffer.wrap(raw.getBytes(StandardCharsets.US_ASCII))));
+        assertEquals("", AccountLaneDispatcher.accountOf("{1:F01}{4:\n:20:REF\n-}"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.bank.mt.repository.MtMessageOdsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AsyncIngestionServiceTest {
+
+    private final IngestionService ingestionService = mock(IngestionService.class);
+    private final MtMessageOdsRepository odsRepository = mock(MtMessageOdsRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong ids = new AtomicLong();
+    private AsyncIngestionService service;
+
+    private AsyncIngestionService service(int workers, int queueCapacity) {
+        return service(workers, queueCapacity, Optional.empty());
+    }
+
+    private AsyncIngestionService service(int workers, int queueCapacity, Optional<AccountLaneDispatcher> lanes) {
+        when(ingestionService.save(anyString(), eq(OdsStatus.NEW))).thenAnswer(inv -> {
+            MtMessageOds ods = new MtMessageOds();
+            ods.setId(ids.incrementAndGet());
+            ods.setRawMessage(inv.getArgument(0));
+            ods.setStatus(OdsStatus.NEW);
+            return ods;
+        });
+        service = new AsyncIngestionService(ingestionService, odsRepository, mock(PlatformTransactionManager.class),
+                meterRegistry, lanes, lanes.isPresent(), workers, queueCapacity);
+        return service;
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void acceptsWithAnIdAndProcessesInTheBackground() {
+        when(odsRepository.updateStatusBatch(anyList(), eq(OdsStatus.NEW), eq(OdsStatus.PROCESSING))).thenReturn(1);
+
+        MtMessageOds ods = service(2, 10).accept("MSG").orElseThrow();
+
+        assertEquals(1L, ods.getId());
+        verify(ingestionService, timeout(2000)).process(ods);
+        verify(odsRepository).updateStatusBatch(List.of(1L), OdsStatus.NEW, OdsStatus.PROCESSING);
+    }
+
+    @Test
+    void refusesWithoutSavingWhenTheQueueIsFull() throws Exception {
+        when(odsRepository.updateStatusBatch(anyList(), eq(OdsStatus.NEW), eq(OdsStatus.PROCESSING))).thenReturn(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await();
+            return null;
+        }).when(ingestionService).process(any());
+        AsyncIngestionService service = service(1, 1);
+
+        assertTrue(service.accept("RUNNING").isPresent());
+        assertTrue(service.accept("QUEUED").isPresent());
+        assertTrue(service.accept("REFUSED").isEmpty());
+
+        verify(ingestionService, never()).save(eq("REFUSED"), any());
+        assertEquals(1.0, meterRegistry.counter("mt.ingestion.async.rejected").count());
+        release.countDown();
+        verify(ingestionService, timeout(2000).times(2)).process(any());
+        assertTrue(service.accept("AFTER").isPresent());
+    }
+
+    @Test
+    void refusesAndWithdrawsTheRowWhenTheAccountLaneIsFull() throws Exception {
+        when(odsRepository.updateStatusBatch(anyList(), eq(OdsStatus.NEW), eq(OdsStatus.PROCESSING))).thenReturn(1);
+        when(odsRepository.deleteIfStatus(anyLong(), eq(OdsStatus.NEW))).thenReturn(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            release.await();
+            return null;
+        }).when(ingestionService).process(any());
+        AccountLaneDispatcher lanes = new AccountLaneDispatcher(meterRegistry, 1, 1, 1.5);
+        AsyncIngestionService service = service(1, 10, Optional.of(lanes));
+
+        try {
+            assertTrue(service.accept("RUNNING").isPresent());
+            verify(ingestionService, timeout(2000)).process(any());
+            assertTrue(service.accept("QUEUED").isPresent());
+            assertTrue(service.accept("REFUSED").isEmpty());
+
+            verify(odsRepository).deleteIfStatus(3L, OdsStatus.NEW);
+            assertEquals(1.0, meterRegistry.counter("mt.ingestion.async.rejected").count());
+            release.countDown();
+            verify(ingestionService, timeout(2000).times(2)).process(any());
+        } finally {
+            release.countDown();
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    void skipsRowsAnotherClaimerTook() {
+        when(odsRepository.updateStatusBatch(anyList(), eq(OdsStatus.NEW), eq(OdsStatus.PROCESSING))).thenReturn(0);
+
+        service(1, 10).accept("MSG");
+
+        verify(odsRepository, timeout(2000)).updateStatusBatch(anyList(), any(), any());
+        verify(ingestionService, after(200).never()).process(any());
+    }
+}
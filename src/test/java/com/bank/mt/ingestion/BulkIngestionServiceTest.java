@@ -0,0 +1,66 @@
+package com.bank.mt.ingestion;
+
+import com.bank.mt.domain.MtMessageOds;
+import com.bank.mt.domain.OdsStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BulkIngestionServiceTest {
+
+    private final IngestionService ingestionService = mock(IngestionService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BulkIngestionService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void everyMessageGetsAResultEvenWhenItsWorkerDiesOrHangs() throws Exception {
+        MtMessageOds ods = new MtMessageOds();
+        ods.setId(1L);
+        ods.setStatus(OdsStatus.COMPLETED);
+        when(ingestionService.ingest("ok")).thenReturn(ods);
+        when(ingestionService.ingest("deep")).thenThrow(new StackOverflowError());
+        when(ingestionService.ingest("stuck")).thenAnswer(inv -> {
+            release.await();
+            return ods;
+        });
+        service = new BulkIngestionService(ingestionService, new ObjectMapper(), new SimpleMeterRegistry(),
+                2, 10, 1024, 200);
+        String body = """
+                {"rawMessage": "ok"}
+                {"rawMessage": "deep"}
+                {"rawMessage": "stuck"}
+                """;
+
+        List<BulkIngestionService.Result> results = new ArrayList<>();
+        long read = service.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                BulkIngestionService.Format.NDJSON, results::add);
+
+        assertEquals(3, read);
+        assertEquals(3, results.size());
+        assertEquals("COMPLETED", resultOf(results, 0).status());
+        assertEquals("REJECTED", resultOf(results, 1).status());
+        assertTrue(resultOf(results, 1).error().contains("StackOverflowError"));
+        assertEquals("REJECTED", resultOf(results, 2).status());
+        assertTrue(resultOf(results, 2).error().startsWith("No result within 200 ms"));
+    }
+
+    private static BulkIngestionService.Result resultOf(List<BulkIngestionService.Result> results, long seq) {
+        return results.stream().filter(r -> r.seq() == seq).findFirst().orElseThrow();
+    }
+}
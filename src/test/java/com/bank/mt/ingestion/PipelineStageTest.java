@@ -0,0 +1,73 @@
+package com.bank.mt.ingestion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void fullStageBlocksTheSubmitterUntilATaskFinishes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            PipelineStage stage = new PipelineStage("delivery", executor, 1, meterRegistry);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger ran = new AtomicInteger();
+
+            stage.execute(() -> {
+                awaitQuietly(release);
+                ran.incrementAndGet();
+            });
+            CompletableFuture<Void> second = CompletableFuture.runAsync(() -> stage.execute(ran::incrementAndGet));
+
+            Thread.sleep(100);
+            assertFalse(second.isDone(), "submitter should be held back while the stage is full");
+            assertEquals(1.0, meterRegistry.get("mt.pipeline.stage.rejected").tag("stage", "delivery").counter().count());
+
+            release.countDown();
+            second.get(5, TimeUnit.SECONDS);
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(2, ran.get());
+            assertEquals(1, stage.available());
+            assertEquals(2, meterRegistry.get("mt.pipeline.stage.wait").tag("stage", "delivery").timer().count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void admittedWorkHoldsItsPermitUntilTheFutureCompletes() {
+        PipelineStage stage = new PipelineStage("aggregation", Runnable::run, 2, meterRegistry);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+
+        CompletableFuture<String> admitted = stage.admit(onStart -> {
+            onStart.run();
+            return pending;
+        });
+        assertEquals(1, stage.available());
+        assertEquals(0.0, meterRegistry.get("mt.pipeline.stage.queue").tag("stage", "aggregation").gauge().value());
+
+        pending.complete("done");
+        assertEquals("done", admitted.join());
+        assertEquals(2, stage.available());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.bank.mt.parsing;
 
 import com.bank.mt.domain.MtStatement;
+import com.bank.mt.swift.MtMessageIndex;
+import com.bank.mt.swift.MtTagView;
+import com.bank.mt.swift.MtTokenizer;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class MtParserTest {
 
-    private final MtParser parser = new MtParser();
-
-    @Test
-    void parseSinglePageMt940() {
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseSinglePageMt940(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
         String raw = """
                 {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
                 :20:REF123
@@ -33,8 +44,35 @@ class MtParserTest {
         assertFalse(stmt.isMultiPage());
     }
 
-    @Test
-    void parseMt942() {
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseBareCrAndCrLfLineEndings(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
+        String lf = """
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF789
+                :25:123456789
+                :28C:00002/003
+                :60M:C210101EUR1000,
+                :61:2101010101DR100,
+                :62F:C210101EUR900,
+                -}""";
+
+        for (String raw : List.of(lf.replace("\n", "\r"), lf.replace("\n", "\r\n"))) {
+            MtStatement stmt = parser.parse(raw);
+
+            assertEquals("REF789", stmt.getTransactionReference());
+            assertEquals("123456789", stmt.getAccountNumber());
+            assertEquals("00002", stmt.getStatementNumber());
+            assertEquals(3, stmt.getPageNumber());
+            assertEquals(3, stmt.getTotalPages());
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseMt942(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
         String raw = """
                 {1:F01BANKGB22AXXX0000000000}{2:I942CLIENTBICXXXXN}{4:
                 :20:REF789
@@ -54,8 +92,10 @@ class MtParserTest {
         assertEquals("REF789", stmt.getTransactionReference());
     }
 
-    @Test
-    void parseMultiPageMt940_page1() {
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseMultiPageMt940_page1(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
         String raw = """
                 {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
                 :20:REF456
@@ -72,13 +112,159 @@ class MtParserTest {
         assertEquals(2, stmt.getPageNumber());
     }
 
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parsePageNumberAboveFiveDigitsThrows(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
+        String raw = """
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF456
+                :25:123456789
+                :28C:1/2000000000
+                :60M:C210201EUR5000,
+                -}""";
+
+        assertThrows(MtParseException.class, () -> parser.parse(raw));
+        assertEquals(99999, parser.parse(raw.replace("2000000000", "0099999")).getPageNumber());
+    }
+
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseNullMessageThrows(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
+        assertThrows(MtParseException.class, () -> parser.parse((String) null));
+        assertThrows(MtParseException.class, () -> parser.parse((ByteBuffer) null));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseBlankMessageThrows(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
+        assertThrows(MtParseException.class, () -> parser.parse("  "));
+    }
+
+    @ParameterizedTest
+    @EnumSource(MtParser.Engine.class)
+    void parseOutputBlock2WithUserHeaderAndContinuationLines(MtParser.Engine engine) {
+        MtParser parser = new MtParser(engine);
+        String raw = "{1:F01HSBCGB2LAXXX0000000000}{2:O9501200CITIUS33XXXX00000000002103011200N}"
+                + "{3:{108:MUR12345}}{4:\r\n"
+                + ":20:MIDPAGE\r\n"
+                + ":25:555555555\r\n"
+                + ":28C:00007/003\r\n"
+                + ":60M:C210301EUR100,\r\n"
+                + ":61:2103010301DR10,NTRFNONREF\r\n"
+                + ":86:FIRST LINE\r\n"
+                + "SECOND LINE\r\n"
+                + ":62M:C210301EUR90,\r\n"
+                + "-}";
+
+        MtStatement stmt = parser.parse(raw);
+
+        assertEquals("MT950", stmt.getMessageType());
+        assertEquals("HSBCGB2L", stmt.getSenderBic());
+        assertEquals("CITIUS33", stmt.getReceiverBic());
+        assertEquals("MIDPAGE", stmt.getTransactionReference());
+        assertEquals("555555555", stmt.getAccountNumber());
+        assertEquals("00007", stmt.getStatementNumber());
+        assertEquals(3, stmt.getPageNumber());
+        assertEquals(0, stmt.getTotalPages());
+    }
+
     @Test
-    void parseNullMessageThrows() {
-        assertThrows(MtParseException.class, () -> parser.parse(null));
+    void tokenizerIndexesMultiLineTagValues() {
+        String raw = "{1:F01BANKGB22AXXX0000000000}{4:\n:61:2101010101DR100,\n:86:LINE ONE\nLINE TWO\n-}";
+
+        MtMessageIndex index = MtTokenizer.scan(raw);
+
+        assertEquals(2, index.tagCount());
+        assertEquals("61", index.tagName(0));
+        assertEquals("86", index.tagName(1));
+        assertEquals("LINE ONE\nLINE TWO", index.value(1));
+        assertEquals(raw.indexOf("-}"), index.block4End());
     }
 
     @Test
-    void parseBlankMessageThrows() {
-        assertThrows(MtParseException.class, () -> parser.parse("  "));
+    void tagViewIteratesStatementLinesWithOptionalNarrative() {
+        MtStatement stmt = new MtParser().parse("""
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF123
+                :25:123456789
+                :28C:00001/001
+                :60F:C210101EUR1000,
+                :61:2101010101DR100,
+                :86:RENT
+                :61:2101010101CR50,
+                :62F:C210101EUR950,
+                -}""");
+
+        MtTagView.TransactionCursor cursor = stmt.getTagView().transactions();
+
+        assertTrue(cursor.next());
+        assertEquals("2101010101DR100,", cursor.statementLine());
+        assertEquals("RENT", cursor.information());
+        assertTrue(cursor.next());
+        assertEquals("2101010101CR50,", cursor.statementLine());
+        assertFalse(cursor.hasInformation());
+        assertFalse(cursor.next());
+        assertEquals("{1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}", stmt.getTagView().swiftHeader());
+    }
+
+    @Test
+    void parseFromDirectByteBufferMatchesStringParse() {
+        String raw = """
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF456
+                :25:123456789
+                :28C:00002/002
+                :60M:C210201EUR5000,
+                :61:2102010201DR200,
+                :62F:C210201EUR4800,
+                -}""";
+        byte[] bytes = raw.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer payload = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        MtStatement stmt = new MtParser().parse(payload);
+
+        assertEquals(0, payload.position());
+        assertEquals(raw, stmt.getRawMessage());
+        assertEquals("MT940", stmt.getMessageType());
+        assertEquals("BANKGB22", stmt.getSenderBic());
+        assertEquals("CLIENTBI", stmt.getReceiverBic());
+        assertEquals("REF456", stmt.getTransactionReference());
+        assertEquals(2, stmt.getPageNumber());
+        assertEquals(2, stmt.getTotalPages());
+        assertEquals("C210201EUR4800,", stmt.getTagView().firstValue("62F"));
+    }
+
+    @Test
+    void parseAllKeepsInputOrderAndReportsFailuresPerItem() {
+        List<String> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(i % 10 == 7 ? " " : """
+                    {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                    :20:REF%03d
+                    :25:123456789
+                    :28C:00001/001
+                    -}""".formatted(i));
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        List<MtParseResult> results = new MtParser().parseAll(batch, pool);
+        pool.shutdown();
+
+        assertEquals(100, results.size());
+        for (int i = 0; i < 100; i++) {
+            MtParseResult result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i % 10 == 7) {
+                assertFalse(result.isSuccess());
+                assertNotNull(result.getError());
+            } else {
+                assertTrue(result.isSuccess());
+                assertEquals("REF%03d".formatted(i), result.getStatement().getTransactionReference());
+            }
+        }
+        assertEquals(90, new MtParser().parseAll(batch.stream()).stream().filter(MtParseResult::isSuccess).count());
     }
 }
@@ -0,0 +1,67 @@
+package com.bank.mt.parsing;
+
+import com.bank.mt.domain.MtStatement;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseResultCacheTest {
+
+    private static final String RAW = """
+            {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+            :20:REF456
+            :25:123456789
+            :28C:00002/002
+            :60M:C210201EUR5000,
+            :61:2102010201DR200,
+            :62F:C210201EUR4800,
+            -}""";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void redeliveryIsServedFromCacheAsIndependentCopy() {
+        ParseResultCache cache = new ParseResultCache(new MtParser(), meterRegistry, 1 << 20);
+
+        MtStatement first = cache.parse(RAW);
+        first.setReceiverBic("CHANGED");
+        MtStatement second = cache.parse(new String(RAW.toCharArray()));
+
+        assertNotSame(first, second);
+        assertEquals("CLIENTBI", second.getReceiverBic());
+        assertEquals("REF456", second.getTransactionReference());
+        assertEquals(1.0, meterRegistry.counter("mt.parsing.cache.miss").count());
+        assertEquals(1.0, meterRegistry.counter("mt.parsing.cache.hit").count());
+    }
+
+    @Test
+    void checksumIsComputedOnceAndSharedWithByteRedeliveries() {
+        ParseResultCache cache = new ParseResultCache(new MtParser(), meterRegistry, 1 << 20);
+
+        String checksum = cache.checksum(cache.parse(RAW));
+        byte[] bytes = RAW.getBytes(StandardCharsets.US_ASCII);
+        MtStatement fromBytes = cache.parse(ByteBuffer.wrap(bytes));
+
+        assertEquals(PageChecksum.of(RAW), checksum);
+        assertEquals(checksum, fromBytes.getChecksum());
+        assertEquals(1.0, meterRegistry.counter("mt.parsing.cache.hit").count());
+    }
+
+    @Test
+    void byteBudgetEvictsAndZeroDisables() {
+        ParseResultCache tiny = new ParseResultCache(new MtParser(), meterRegistry, 600);
+        for (int i = 0; i < 20; i++) {
+            tiny.parse(RAW.replace("REF456", "REF" + i));
+        }
+        tiny.cleanUp();
+        assertTrue(meterRegistry.counter("mt.parsing.cache.eviction").count() > 0);
+
+        ParseResultCache disabled = new ParseResultCache(new MtParser(), new SimpleMeterRegistry(), 0);
+        assertEquals("REF456", disabled.parse(RAW).getTransactionReference());
+        assertThrows(MtParseException.class, () -> disabled.parse(" "));
+    }
+}
@@ -0,0 +1,90 @@
+package com.bank.mt.validation;
+
+import com.bank.mt.domain.MtStatement;
+import com.bank.mt.domain.StatementBalance;
+import com.bank.mt.parsing.MtParseException;
+import com.bank.mt.parsing.MtParser;
+import com.bank.mt.parsing.SwiftAmount;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceValidatorTest {
+
+    private final MtParser parser = new MtParser();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void reconcilingStatementPassesAndCarriesTotals() {
+        BalanceValidator validator = new BalanceValidator(meterRegistry, BalanceValidator.Mode.REJECT);
+        MtStatement stmt = parser.parse("""
+                {1:F01BANKGB22AXXX0000000000}{2:I940CLIENTBICXXXXN}{4:
+                :20:REF123
+                :25:123456789
+                :28C:00001/001
+                :60F:C210101EUR1000,
+                :61:2101010101DR100,50NTRFREF1//ACCT
+                :86:RENT
+                :61:210101CR0,5NTRFREF2
+                :61:2101010101RD20,NTRFREF3
+                :62F:C210101EUR920,
+                -}""");
+
+        assertTrue(validator.verify(stmt));
+        assertEquals(new StatementBalance(1_000_000, -80_000, 920_000), stmt.getBalance());
+        assertEquals(1.0, meterRegistry.counter("mt.validation.balance.passed").count());
+    }
+
+    @Test
+    void mismatchIsRejectedOnlyInRejectMode() {
+        String raw = """
+                {1:F01BANKGB22AXXX0000000000}{2:I950CLIENTBICXXXXN}{4:
+                :20:REF123
+                :25:123456789
+                :28C:00001/001
+                :60F:D210101EUR1000,
+                :61:2101010101CR100,
+                :62F:D210101EUR800,
+                -}""";
+
+        assertFalse(new BalanceValidator(meterRegistry, BalanceValidator.Mode.REJECT).verify(parser.parse(raw)));
+        assertTrue(new BalanceValidator(meterRegistry, BalanceValidator.Mode.LOG).verify(parser.parse(raw)));
+        assertTrue(new BalanceValidator(meterRegistry).verify(parser.parse(raw)));
+        assertEquals(3.0, meterRegistry.counter("mt.validation.balance.failed").count());
+
+        MtStatement unchecked = parser.parse(raw);
+        assertTrue(new BalanceValidator(meterRegistry, BalanceValidator.Mode.OFF).verify(unchecked));
+        assertNull(unchecked.getBalance());
+    }
+
+    @Test
+    void statementsWithoutBalancePairAreNotChecked() {
+        BalanceValidator validator = new BalanceValidator(meterRegistry, BalanceValidator.Mode.REJECT);
+        MtStatement mt942 = parser.parse("""
+                {1:F01BANKGB22AXXX0000000000}{2:I942CLIENTBICXXXXN}{4:
+                :20:REF789
+                :25:987654321
+                :28C:00001/001
+                :34F:EUR100,
+                :61:2101010101CR500,
+                -}""");
+
+        assertTrue(validator.verify(mt942));
+        assertNull(mt942.getBalance());
+    }
+
+    @Test
+    void parsesSwiftAmountsIntoFixedPointLongs() {
+        assertEquals(100_000, SwiftAmount.parse("100,", 0, 4));
+        assertEquals(1_234_560, SwiftAmount.parse("1234,56NTRF", 0, 11));
+        assertEquals(5, SwiftAmount.parse("0,005", 0, 5));
+        assertEquals(-250_000, SwiftAmount.balance("D210101EUR250,", 0, 14));
+        assertEquals("-1250,5", StatementBalance.format(-1_250_500));
+        assertEquals("900,", StatementBalance.format(900_000));
+
+        assertThrows(MtParseException.class, () -> SwiftAmount.parse("100", 0, 3));
+        assertThrows(MtParseException.class, () -> SwiftAmount.parse("1,2345", 0, 6));
+        assertThrows(MtParseException.class, () -> SwiftAmount.statementLine("210101X100,", 0, 11));
+    }
+}